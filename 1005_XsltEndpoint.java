@@ -18,7 +18,9 @@ package org.apache.camel.component.xslt;
 
 import java.io.IOException;
 import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
 
 import org.apache.camel.Component;
 import org.apache.camel.Exchange;
@@ -27,6 +29,7 @@ import org.apache.camel.api.management.ManagedOperation;
 import org.apache.camel.api.management.ManagedResource;
 import org.apache.camel.builder.xml.XsltBuilder;
 import org.apache.camel.impl.ProcessorEndpoint;
+import org.apache.camel.util.ObjectHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +42,7 @@ public class XsltEndpoint extends ProcessorEndpoint {
     private String resourceUri;
     private boolean cacheStylesheet;
     private volatile boolean cacheCleared;
+    private XsltTemplatesCache templatesCache;
 
     public XsltEndpoint(String endpointUri, Component component, XsltBuilder xslt, String resourceUri,
             boolean cacheStylesheet) throws Exception {
@@ -51,6 +55,9 @@ public class XsltEndpoint extends ProcessorEndpoint {
     @ManagedOperation(description = "Clears the cached XSLT stylesheet, forcing to re-load the stylesheet on next request")
     public void clearCachedStylesheet() {
         this.cacheCleared = true;
+        if (templatesCache != null) {
+            templatesCache.remove(resourceUri);
+        }
     }
 
     @ManagedAttribute(description = "Whether the XSLT stylesheet is cached")
@@ -58,6 +65,39 @@ public class XsltEndpoint extends ProcessorEndpoint {
         return cacheStylesheet;
     }
 
+    @ManagedAttribute(description = "Number of compiled stylesheets in the shared templates cache")
+    public int getTemplatesCacheSize() {
+        return templatesCache != null ? templatesCache.size() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of shared templates cache hits")
+    public long getTemplatesCacheHits() {
+        return templatesCache != null ? templatesCache.getHits() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of shared templates cache misses")
+    public long getTemplatesCacheMisses() {
+        return templatesCache != null ? templatesCache.getMisses() : 0;
+    }
+
+    @ManagedAttribute(description = "Number of stylesheets evicted from the shared templates cache")
+    public long getTemplatesCacheEvicted() {
+        return templatesCache != null ? templatesCache.getEvicted() : 0;
+    }
+
+    public XsltTemplatesCache getTemplatesCache() {
+        return templatesCache;
+    }
+
+    /**
+     * To use a shared cache of compiled stylesheets, which avoids compiling the
+     * same stylesheet again when it is used by many endpoints, such as the ones
+     * created on demand from the {@link XsltConstants#XSLT_RESOURCE_URI} header.
+     */
+    public void setTemplatesCache(XsltTemplatesCache templatesCache) {
+        this.templatesCache = templatesCache;
+    }
+
     @ManagedAttribute(description = "Endpoint State")
     public String getState() {
         return getStatus().name();
@@ -71,7 +111,27 @@ public class XsltEndpoint extends ProcessorEndpoint {
     public XsltEndpoint findOrCreateEndpoint(String uri, String newResourceUri) {
         String newUri = uri.replace(resourceUri, newResourceUri);
         LOG.trace("Getting endpoint with URI: {}", newUri);
-        return getCamelContext().getEndpoint(newUri, XsltEndpoint.class);
+        if (templatesCache == null) {
+            return getCamelContext().getEndpoint(newUri, XsltEndpoint.class);
+        }
+
+        synchronized (getComponent()) {
+            if (getCamelContext().hasEndpoint(newUri) != null) {
+                return getCamelContext().getEndpoint(newUri, XsltEndpoint.class);
+            }
+            // the stylesheet is loaded when the endpoint is started, so share
+            // our cache with the new endpoint before it is added to the context
+            try {
+                XsltEndpoint answer = (XsltEndpoint) getComponent().createEndpoint(newUri);
+                if (answer.getTemplatesCache() == null) {
+                    answer.setTemplatesCache(templatesCache);
+                }
+                getCamelContext().addEndpoint(newUri, answer);
+                return answer;
+            } catch (Exception e) {
+                throw ObjectHelper.wrapRuntimeCamelException(e);
+            }
+        }
     }
 
     @Override
@@ -100,6 +160,20 @@ public class XsltEndpoint extends ProcessorEndpoint {
      * @throws IOException is thrown if error loading resource
      */
     protected void loadResource(String resourceUri) throws TransformerException, IOException {
+        TransformerFactory factory = xslt.getConverter().getTransformerFactory();
+        if (templatesCache != null) {
+            Templates templates = templatesCache.get(factory, xslt.getUriResolver(), resourceUri);
+            if (templates != null) {
+                LOG.trace("{} using cached schema resource: {}", this, resourceUri);
+                if (xslt.getTemplate() != templates) {
+                    xslt.setTemplate(templates);
+                }
+                // now loaded so clear flag
+                cacheCleared = false;
+                return;
+            }
+        }
+
         LOG.trace("{} loading schema resource: {}", this, resourceUri);
         Source source = xslt.getUriResolver().resolve(resourceUri, null);
         if (source == null) {
@@ -107,6 +181,9 @@ public class XsltEndpoint extends ProcessorEndpoint {
         } else {
             xslt.setTransformerSource(source);
         }
+        if (templatesCache != null) {
+            templatesCache.put(factory, xslt.getUriResolver(), resourceUri, xslt.getTemplate());
+        }
         // now loaded so clear flag
         cacheCleared = false;
     }
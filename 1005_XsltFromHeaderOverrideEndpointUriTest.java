@@ -16,19 +16,29 @@
  */
 package org.apache.camel.component.xslt;
 
+import java.net.URL;
 import java.util.List;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
 
 import org.apache.camel.ContextTestSupport;
 import org.apache.camel.Exchange;
 import org.apache.camel.builder.RouteBuilder;
 import org.apache.camel.component.mock.MockEndpoint;
 import org.apache.camel.impl.JndiRegistry;
+import org.apache.camel.util.ObjectHelper;
 
 /**
  *
  */
 public class XsltFromHeaderOverrideEndpointUriTest extends ContextTestSupport {
 
+    private static final String OPTIONS = "transformerFactory=#factory&uriResolver=#resolver";
+
+    private final XsltTemplatesCache templatesCache = new XsltTemplatesCache();
+
     public void testSendMessageAndHaveItTransformed() throws Exception {
         MockEndpoint endpoint = getMockEndpoint("mock:result");
         endpoint.expectedMessageCount(1);
@@ -56,6 +66,32 @@ public class XsltFromHeaderOverrideEndpointUriTest extends ContextTestSupport {
         assertEquals("bean.subject", "Hey", bean.getSubject());
     }
 
+    public void testTemplatesCacheSharedWithEndpointsFromHeader() throws Exception {
+        MockEndpoint endpoint = getMockEndpoint("mock:cached");
+        endpoint.expectedMessageCount(2);
+
+        long misses = templatesCache.getMisses();
+        long hits = templatesCache.getHits();
+
+        // each route creates its own endpoint for the stylesheet from the header
+        template.sendBodyAndHeader("direct:cached",
+                "<mail><subject>Hey</subject><body>Hello world!</body></mail>",
+                XsltConstants.XSLT_RESOURCE_URI, "org/apache/camel/component/xslt/transform_to_foo.xsl");
+        template.sendBodyAndHeader("direct:cachedNoContentCache",
+                "<mail><subject>Hey</subject><body>Hello world!</body></mail>",
+                XsltConstants.XSLT_RESOURCE_URI, "org/apache/camel/component/xslt/transform_to_foo.xsl");
+
+        assertMockEndpointsSatisfied();
+
+        for (Exchange exchange : endpoint.getReceivedExchanges()) {
+            assertTrue(exchange.getIn().getBody(String.class).indexOf("foo") > -1);
+        }
+
+        // the stylesheet is compiled once and then taken from the shared cache
+        assertEquals(1, templatesCache.getMisses() - misses);
+        assertTrue(templatesCache.getHits() > hits);
+    }
+
     @Override
     protected RouteBuilder createRouteBuilder() throws Exception {
         return new RouteBuilder() {
@@ -66,6 +102,16 @@ public class XsltFromHeaderOverrideEndpointUriTest extends ContextTestSupport {
                     .multicast()
                         .beanRef("testBean")
                         .to("mock:result");
+
+                XsltEndpoint cached = context.getEndpoint(
+                        "xslt:org/apache/camel/component/xslt/transform.xsl?" + OPTIONS, XsltEndpoint.class);
+                cached.setTemplatesCache(templatesCache);
+                XsltEndpoint cachedNoContentCache = context.getEndpoint(
+                        "xslt:org/apache/camel/component/xslt/transform.xsl?contentCache=false&" + OPTIONS, XsltEndpoint.class);
+                cachedNoContentCache.setTemplatesCache(templatesCache);
+
+                from("direct:cached").to(cached).to("mock:cached");
+                from("direct:cachedNoContentCache").to(cachedNoContentCache).to("mock:cached");
             }
         };
     }
@@ -74,7 +120,18 @@ public class XsltFromHeaderOverrideEndpointUriTest extends ContextTestSupport {
     protected JndiRegistry createRegistry() throws Exception {
         JndiRegistry jndi = super.createRegistry();
         jndi.bind("testBean", new TestBean());
+        // the endpoints only share compiled stylesheets if they use the same factory and resolver
+        jndi.bind("factory", TransformerFactory.newInstance());
+        jndi.bind("resolver", new ClasspathUriResolver());
         return jndi;
     }
 
+    private static final class ClasspathUriResolver implements URIResolver {
+
+        public Source resolve(String href, String base) {
+            URL url = ObjectHelper.loadResourceAsURL(href);
+            return url != null ? new StreamSource(url.toExternalForm()) : null;
+        }
+    }
+
 }
@@ -0,0 +1,220 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.xslt;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+
+import org.apache.camel.util.LRUCache;
+
+/**
+ * A size bounded cache of compiled XSLT {@link Templates} which can be shared
+ * by several {@link XsltEndpoint}s, for example by binding an instance in the
+ * registry and referring to it with <tt>templatesCache=#myCache</tt>.
+ * <p/>
+ * Entries are keyed by the resource uri together with the
+ * {@link TransformerFactory} and {@link URIResolver} instances the stylesheet
+ * was compiled with, as endpoints configured with a different factory or
+ * resolver may compile the same resource differently. Endpoints therefore only
+ * share compiled stylesheets if they also share the factory and resolver.
+ * <p/>
+ * Each entry remembers the last modified timestamp of the stylesheet at the
+ * time it was compiled, so a stylesheet that has been changed on the file
+ * system is compiled again. The file system is checked at most once per
+ * {@link #getModifiedCheckInterval() modified check interval} for each entry.
+ * <p/>
+ * {@link Templates} are thread safe, and each endpoint creates its
+ * {@link javax.xml.transform.Transformer}s from the cached instance through
+ * the transformer pool of its {@link org.apache.camel.builder.xml.XsltBuilder}.
+ */
+public class XsltTemplatesCache {
+
+    public static final int DEFAULT_MAXIMUM_CACHE_SIZE = 100;
+    public static final long DEFAULT_MODIFIED_CHECK_INTERVAL = 1000;
+
+    private final LRUCache<Key, CachedTemplates> cache;
+    private volatile long modifiedCheckInterval = DEFAULT_MODIFIED_CHECK_INTERVAL;
+
+    public XsltTemplatesCache() {
+        this(DEFAULT_MAXIMUM_CACHE_SIZE);
+    }
+
+    public XsltTemplatesCache(int maximumCacheSize) {
+        this.cache = new LRUCache<Key, CachedTemplates>(maximumCacheSize);
+    }
+
+    /**
+     * Gets the compiled templates for the given resource.
+     *
+     * @param factory      the transformer factory the stylesheet is compiled with
+     * @param uriResolver  the uri resolver the stylesheet is compiled with
+     * @param resourceUri  the resource uri of the stylesheet
+     * @return the templates, or <tt>null</tt> if not cached or if the cached
+     *         stylesheet is older than the resource
+     */
+    public Templates get(TransformerFactory factory, URIResolver uriResolver, String resourceUri) {
+        Key key = new Key(factory, uriResolver, resourceUri);
+        CachedTemplates cached = cache.get(key);
+        if (cached == null) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        if (now - cached.lastChecked >= modifiedCheckInterval) {
+            if (cached.lastModified != lastModified(resourceUri)) {
+                // stale so force it to be compiled again
+                cache.remove(key);
+                return null;
+            }
+            cached.lastChecked = now;
+        }
+        return cached.templates;
+    }
+
+    /**
+     * Adds the compiled templates of the given resource to the cache.
+     *
+     * @param factory      the transformer factory the stylesheet was compiled with
+     * @param uriResolver  the uri resolver the stylesheet was compiled with
+     * @param resourceUri  the resource uri of the stylesheet
+     * @param templates    the compiled stylesheet
+     */
+    public void put(TransformerFactory factory, URIResolver uriResolver, String resourceUri, Templates templates) {
+        cache.put(new Key(factory, uriResolver, resourceUri),
+                new CachedTemplates(templates, lastModified(resourceUri), System.currentTimeMillis()));
+    }
+
+    /**
+     * Evicts the given resource from the cache, whatever factory and resolver
+     * it was compiled with.
+     *
+     * @param resourceUri  the resource uri of the stylesheet
+     */
+    public void remove(String resourceUri) {
+        List<Key> keys = new ArrayList<Key>(cache.keySet());
+        for (Key key : keys) {
+            if (key.resourceUri.equals(resourceUri)) {
+                cache.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Evicts all the cached stylesheets.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public int getMaximumCacheSize() {
+        return cache.getMaxCacheSize();
+    }
+
+    public long getModifiedCheckInterval() {
+        return modifiedCheckInterval;
+    }
+
+    /**
+     * How often, in millis, a cached stylesheet is checked for changes on the
+     * file system. Use <tt>0</tt> to check on every lookup.
+     */
+    public void setModifiedCheckInterval(long modifiedCheckInterval) {
+        this.modifiedCheckInterval = modifiedCheckInterval;
+    }
+
+    public long getHits() {
+        return cache.getHits();
+    }
+
+    public long getMisses() {
+        return cache.getMisses();
+    }
+
+    public long getEvicted() {
+        return cache.getEvicted();
+    }
+
+    /**
+     * Gets the last modified timestamp of the resource, which is only known for
+     * resources on the file system. Other resources (such as classpath
+     * resources) are regarded as never changing.
+     */
+    protected long lastModified(String resourceUri) {
+        if (resourceUri.startsWith("file:")) {
+            return new File(resourceUri.substring("file:".length())).lastModified();
+        }
+        return 0;
+    }
+
+    /**
+     * The resource uri, and the identity of the factory and resolver.
+     */
+    private static final class Key {
+        private final TransformerFactory factory;
+        private final URIResolver uriResolver;
+        private final String resourceUri;
+
+        private Key(TransformerFactory factory, URIResolver uriResolver, String resourceUri) {
+            this.factory = factory;
+            this.uriResolver = uriResolver;
+            this.resourceUri = resourceUri;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return factory == other.factory && uriResolver == other.uriResolver
+                    && resourceUri.equals(other.resourceUri);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(factory) + System.identityHashCode(uriResolver))
+                    + resourceUri.hashCode();
+        }
+    }
+
+    private static final class CachedTemplates {
+        private final Templates templates;
+        private final long lastModified;
+        private volatile long lastChecked;
+
+        private CachedTemplates(Templates templates, long lastModified, long lastChecked) {
+            this.templates = templates;
+            this.lastModified = lastModified;
+            this.lastChecked = lastChecked;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "XsltTemplatesCache[size=" + size() + ", maximumCacheSize=" + getMaximumCacheSize() + "]";
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.camel.component.xslt;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.URIResolver;
+import javax.xml.transform.stream.StreamSource;
+
+import junit.framework.TestCase;
+
+/**
+ * @version
+ */
+public class XsltTemplatesCacheTest extends TestCase {
+
+    private static final String STYLESHEET = "<xsl:stylesheet version=\"1.0\" "
+            + "xmlns:xsl=\"http://www.w3.org/1999/XSL/Transform\"><xsl:template match=\"/\">"
+            + "<foo/></xsl:template></xsl:stylesheet>";
+
+    private final TransformerFactory factory = TransformerFactory.newInstance();
+    private final URIResolver resolver = new URIResolver() {
+        public Source resolve(String href, String base) {
+            return null;
+        }
+    };
+
+    private File file;
+    private String resourceUri;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        File dir = new File("target/xslt-templates-cache");
+        dir.mkdirs();
+        file = new File(dir, getName() + ".xsl");
+        writeStylesheet();
+        resourceUri = "file:" + file.getPath();
+    }
+
+    public void testCacheHit() throws Exception {
+        XsltTemplatesCache cache = new XsltTemplatesCache();
+        Templates templates = compile();
+
+        assertNull(cache.get(factory, resolver, resourceUri));
+        cache.put(factory, resolver, resourceUri, templates);
+
+        assertSame(templates, cache.get(factory, resolver, resourceUri));
+        assertSame(templates, cache.get(factory, resolver, resourceUri));
+        assertEquals(1, cache.size());
+        assertEquals(2, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    public void testKeyedByFactoryAndResolver() throws Exception {
+        XsltTemplatesCache cache = new XsltTemplatesCache();
+        Templates templates = compile();
+        cache.put(factory, resolver, resourceUri, templates);
+
+        assertNull(cache.get(TransformerFactory.newInstance(), resolver, resourceUri));
+        assertNull(cache.get(factory, null, resourceUri));
+        assertSame(templates, cache.get(factory, resolver, resourceUri));
+
+        Templates other = compile();
+        cache.put(factory, null, resourceUri, other);
+        assertEquals(2, cache.size());
+        assertSame(other, cache.get(factory, null, resourceUri));
+
+        // evicts the stylesheet whatever it was compiled with
+        cache.remove(resourceUri);
+        assertEquals(0, cache.size());
+    }
+
+    public void testInvalidatedWhenFileChanges() throws Exception {
+        XsltTemplatesCache cache = new XsltTemplatesCache();
+        cache.setModifiedCheckInterval(0);
+        cache.put(factory, resolver, resourceUri, compile());
+        assertNotNull(cache.get(factory, resolver, resourceUri));
+
+        touch();
+
+        assertNull(cache.get(factory, resolver, resourceUri));
+        assertEquals(0, cache.size());
+    }
+
+    public void testFileCheckedOncePerInterval() throws Exception {
+        XsltTemplatesCache cache = new XsltTemplatesCache();
+        cache.setModifiedCheckInterval(60000);
+        Templates templates = compile();
+        cache.put(factory, resolver, resourceUri, templates);
+
+        touch();
+
+        // not checked again yet
+        assertSame(templates, cache.get(factory, resolver, resourceUri));
+
+        cache.setModifiedCheckInterval(0);
+        assertNull(cache.get(factory, resolver, resourceUri));
+    }
+
+    public void testBounded() throws Exception {
+        XsltTemplatesCache cache = new XsltTemplatesCache(2);
+        Templates templates = compile();
+        cache.put(factory, resolver, "a.xsl", templates);
+        cache.put(factory, resolver, "b.xsl", templates);
+        cache.put(factory, resolver, "c.xsl", templates);
+
+        assertEquals(2, cache.size());
+        assertNull(cache.get(factory, resolver, "a.xsl"));
+        assertSame(templates, cache.get(factory, resolver, "c.xsl"));
+    }
+
+    private Templates compile() throws Exception {
+        return factory.newTemplates(new StreamSource(file));
+    }
+
+    private void writeStylesheet() throws IOException {
+        Writer writer = new FileWriter(file);
+        try {
+            writer.write(STYLESHEET);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void touch() {
+        // move the timestamp well away, as the file system may only keep seconds
+        assertTrue(file.setLastModified(file.lastModified() - 10000));
+    }
+}
@@ -42,10 +42,13 @@ import java.lang.reflect.Method;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 
@@ -58,13 +61,25 @@ import java.util.regex.Pattern;
 public class OgnlUtil {
 
     private static final Logger LOG = LoggerFactory.getLogger(OgnlUtil.class);
+
+    /**
+     * Default maximum number of entries of the expression and BeanInfo caches
+     */
+    public static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+
+    private static final Random EVICTION_RANDOM = new Random();
+
     private ConcurrentMap<String, Object> expressions = new ConcurrentHashMap<String, Object>();
     private final ConcurrentMap<Class, BeanInfo> beanInfoCache = new ConcurrentHashMap<Class, BeanInfo>();
+    private final CacheStatistics expressionCacheStatistics = new CacheStatistics();
+    private final CacheStatistics beanInfoCacheStatistics = new CacheStatistics();
     private TypeConverter defaultConverter;
 
     private boolean devMode = false;
     private boolean enableExpressionCache = true;
     private boolean enableEvalExpression;
+    private int expressionCacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
+    private int beanInfoCacheMaxSize = DEFAULT_CACHE_MAX_SIZE;
 
     private Set<Class<?>> excludedClasses = new HashSet<Class<?>>();
     private Set<Pattern> excludedPackageNamePatterns = new HashSet<Pattern>();
@@ -88,6 +103,50 @@ public class OgnlUtil {
        enableExpressionCache = "true".equals(cache);
     }
 
+    /**
+     * @param maxSize maximum number of compiled expressions to cache, zero or a negative value for no limit
+     */
+    @Inject(value = XWorkConstants.OGNL_EXPRESSION_CACHE_MAXSIZE, required = false)
+    public void setExpressionCacheMaxSize(String maxSize) {
+        expressionCacheMaxSize = Integer.parseInt(maxSize);
+    }
+
+    /**
+     * @param maxSize maximum number of BeanInfos to cache, zero or a negative value for no limit
+     */
+    @Inject(value = XWorkConstants.OGNL_BEANINFO_CACHE_MAXSIZE, required = false)
+    public void setBeanInfoCacheMaxSize(String maxSize) {
+        beanInfoCacheMaxSize = Integer.parseInt(maxSize);
+    }
+
+    /**
+     * @return number of compiled expressions currently cached
+     */
+    public int getExpressionCacheSize() {
+        return expressions.size();
+    }
+
+    /**
+     * @return number of BeanInfos currently cached
+     */
+    public int getBeanInfoCacheSize() {
+        return beanInfoCache.size();
+    }
+
+    /**
+     * @return hits, misses and evictions of the compiled expression cache
+     */
+    public CacheStatistics getExpressionCacheStatistics() {
+        return expressionCacheStatistics;
+    }
+
+    /**
+     * @return hits, misses and evictions of the BeanInfo cache
+     */
+    public CacheStatistics getBeanInfoCacheStatistics() {
+        return beanInfoCacheStatistics;
+    }
+
     @Inject(value = XWorkConstants.ENABLE_OGNL_EVAL_EXPRESSION, required = false)
     public void setEnableEvalExpression(String evalExpression) {
         enableEvalExpression = "true".equals(evalExpression);
@@ -332,11 +391,16 @@ public class OgnlUtil {
 
     private <T> Object compileAndExecute(String expression, Map<String, Object> context, OgnlTask<T> task) throws OgnlException {
         Object tree;
+        boolean cacheMiss = false;
         if (enableExpressionCache) {
             tree = expressions.get(expression);
             if (tree == null) {
+                expressionCacheStatistics.misses.incrementAndGet();
                 tree = Ognl.parseExpression(expression);
                 checkEnableEvalExpression(tree, context);
+                cacheMiss = true;
+            } else {
+                expressionCacheStatistics.hits.incrementAndGet();
             }
         } else {
             tree = Ognl.parseExpression(expression);
@@ -345,8 +409,8 @@ public class OgnlUtil {
 
         final T exec = task.execute(tree);
         // if cache is enabled and it's a valid expression, puts it in
-        if(enableExpressionCache) {
-            expressions.putIfAbsent(expression, tree);
+        if (cacheMiss) {
+            putInCache(expressions, expression, tree, expressionCacheMaxSize, expressionCacheStatistics);
         }
         return exec;
     }
@@ -537,15 +601,41 @@ public class OgnlUtil {
      * @throws IntrospectionException is thrown if an exception occurs during introspection.
      */
     public BeanInfo getBeanInfo(Class clazz) throws IntrospectionException {
-        synchronized (beanInfoCache) {
-            BeanInfo beanInfo;
-            beanInfo = beanInfoCache.get(clazz);
-            if (beanInfo == null) {
-                beanInfo = Introspector.getBeanInfo(clazz, Object.class);
-                beanInfoCache.putIfAbsent(clazz, beanInfo);
+        BeanInfo beanInfo = beanInfoCache.get(clazz);
+        if (beanInfo == null) {
+            beanInfoCacheStatistics.misses.incrementAndGet();
+            // introspection is idempotent, so concurrent misses may both compute it and the first one wins
+            beanInfo = Introspector.getBeanInfo(clazz, Object.class);
+            beanInfo = putInCache(beanInfoCache, clazz, beanInfo, beanInfoCacheMaxSize, beanInfoCacheStatistics);
+        } else {
+            beanInfoCacheStatistics.hits.incrementAndGet();
+        }
+        return beanInfo;
+    }
+
+    /**
+     * Puts a value in one of the caches, first evicting a randomly chosen entry if the cache is full. Unlike an
+     * LRU order, random eviction needs no bookkeeping on lookups, so cache hits stay lock-free. The price is paid
+     * on misses instead: a ConcurrentMap has no random access, so finding the entry to evict walks on average half
+     * of the keys, about 5000 with the default maximum size. Caches that are much larger than the default, or that
+     * are full and missed often, should be sized so that the working set fits.
+     *
+     * @param maxSize maximum number of entries, zero or a negative value for no limit
+     * @return the value in the cache, which is the given value unless another thread has put one first
+     */
+    private static <K, V> V putInCache(ConcurrentMap<K, V> cache, K key, V value, int maxSize, CacheStatistics statistics) {
+        int size = cache.size();
+        if (maxSize > 0 && size >= maxSize) {
+            Iterator<K> keys = cache.keySet().iterator();
+            for (int skip = EVICTION_RANDOM.nextInt(size); skip > 0 && keys.hasNext(); skip--) {
+                keys.next();
+            }
+            if (keys.hasNext() && cache.remove(keys.next()) != null) {
+                statistics.evictions.incrementAndGet();
             }
-            return beanInfo;
         }
+        V existing = cache.putIfAbsent(key, value);
+        return existing != null ? existing : value;
     }
 
     void internalSetProperty(String name, Object value, Object o, Map<String, Object> context, boolean throwPropertyExceptions) throws ReflectionException{
@@ -598,4 +688,40 @@ public class OgnlUtil {
         T execute(Object tree) throws OgnlException;
     }
 
+    /**
+     * Counters of one of the caches, updated without locking.
+     */
+    public static class CacheStatistics {
+
+        private final AtomicLong hits = new AtomicLong();
+        private final AtomicLong misses = new AtomicLong();
+        private final AtomicLong evictions = new AtomicLong();
+
+        /**
+         * @return number of lookups that found an entry
+         */
+        public long getHits() {
+            return hits.get();
+        }
+
+        /**
+         * @return number of lookups that had to compute the entry
+         */
+        public long getMisses() {
+            return misses.get();
+        }
+
+        /**
+         * @return number of entries removed to keep the cache within its maximum size
+         */
+        public long getEvictions() {
+            return evictions.get();
+        }
+
+        @Override
+        public String toString() {
+            return "hits=" + getHits() + ", misses=" + getMisses() + ", evictions=" + getEvictions();
+        }
+    }
+
 }
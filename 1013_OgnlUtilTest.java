@@ -25,6 +25,7 @@ import com.opensymphony.xwork2.util.*;
 import com.opensymphony.xwork2.util.reflection.ReflectionContextState;
 import ognl.*;
 
+import java.beans.BeanInfo;
 import java.lang.reflect.Method;
 import java.util.*;
 
@@ -105,6 +106,70 @@ public class OgnlUtilTest extends XWorkTestCase {
         assertNotSame(expr0, expr2);
     }
 
+    public void testExpressionCacheIsBounded() throws OgnlException {
+        ognlUtil.setEnableExpressionCache("true");
+        ognlUtil.setExpressionCacheMaxSize("2");
+        OgnlUtil.CacheStatistics statistics = ognlUtil.getExpressionCacheStatistics();
+        long hits = statistics.getHits();
+        long misses = statistics.getMisses();
+        long evictions = statistics.getEvictions();
+
+        ognlUtil.compile("test1");
+        ognlUtil.compile("test2");
+        assertEquals(2, ognlUtil.getExpressionCacheSize());
+        Object tree = ognlUtil.compile("test3");
+        assertEquals(2, ognlUtil.getExpressionCacheSize());
+        assertSame(tree, ognlUtil.compile("test3"));
+
+        assertEquals(hits + 1, statistics.getHits());
+        assertEquals(misses + 3, statistics.getMisses());
+        assertEquals(evictions + 1, statistics.getEvictions());
+    }
+
+    public void testExpressionCacheEvictsOneEntryPerMiss() throws OgnlException {
+        ognlUtil.setEnableExpressionCache("true");
+        ognlUtil.setExpressionCacheMaxSize("10");
+        long evictions = ognlUtil.getExpressionCacheStatistics().getEvictions();
+        for (int i = 0; i < 100; i++) {
+            ognlUtil.compile("evicted" + i);
+        }
+        assertEquals(10, ognlUtil.getExpressionCacheSize());
+        assertTrue(ognlUtil.getExpressionCacheStatistics().getEvictions() - evictions >= 90);
+    }
+
+    public void testNonPositiveMaxSizeIsUnbounded() throws Exception {
+        ognlUtil.setEnableExpressionCache("true");
+        for (String maxSize : new String[] { "0", "-1" }) {
+            ognlUtil.setExpressionCacheMaxSize(maxSize);
+            ognlUtil.setBeanInfoCacheMaxSize(maxSize);
+            int expressions = ognlUtil.getExpressionCacheSize();
+
+            ognlUtil.compile("unbounded" + maxSize + "a");
+            ognlUtil.compile("unbounded" + maxSize + "b");
+            ognlUtil.getBeanInfo(Owner.class);
+            ognlUtil.getBeanInfo(Dog.class);
+
+            assertEquals(expressions + 2, ognlUtil.getExpressionCacheSize());
+            assertTrue(ognlUtil.getBeanInfoCacheSize() >= 2);
+        }
+    }
+
+    public void testBeanInfoCache() throws Exception {
+        ognlUtil.setBeanInfoCacheMaxSize("2");
+        OgnlUtil.CacheStatistics statistics = ognlUtil.getBeanInfoCacheStatistics();
+        long hits = statistics.getHits();
+        long evictions = statistics.getEvictions();
+
+        BeanInfo info0 = ognlUtil.getBeanInfo(Owner.class);
+        assertSame(info0, ognlUtil.getBeanInfo(Owner.class));
+        ognlUtil.getBeanInfo(Dog.class);
+        ognlUtil.getBeanInfo(EmailAction.class);
+        assertEquals(2, ognlUtil.getBeanInfoCacheSize());
+
+        assertTrue(statistics.getHits() > hits);
+        assertTrue(statistics.getEvictions() > evictions);
+    }
+
     public void testCanSetDependentObjectArray() {
         EmailAction action = new EmailAction();
         Map<String, Object> context = ognlUtil.createDefaultContext(action);
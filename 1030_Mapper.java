@@ -305,7 +305,11 @@ public final class Mapper {
                     // Replace ContextVersion with the new one
                     int pos = find(contextVersions, version);
                     if (pos >= 0 && contextVersions[pos].name.equals(version)) {
-                        contextVersions[pos] = newContextVersion;
+                        // Never mutate an array that concurrent map() calls
+                        // may be reading: publish a modified copy instead
+                        newContextVersions = contextVersions.clone();
+                        newContextVersions[pos] = newContextVersion;
+                        mappedContext.versions = newContextVersions;
                         contextObjectToContextVersionMap.put(context, newContextVersion);
                     }
                 }
@@ -459,36 +463,25 @@ public final class Mapper {
             Wrapper wrapper, boolean jspWildCard, boolean resourceOnly) {
 
         synchronized (context) {
+            WrapperList wrapperList = context.wrapperList;
+            WrapperList newWrapperList;
             if (path.endsWith("/*")) {
                 // Wildcard wrapper
                 String name = path.substring(0, path.length() - 2);
                 MappedWrapper newWrapper = new MappedWrapper(name, wrapper,
                         jspWildCard, resourceOnly);
-                MappedWrapper[] oldWrappers = context.wildcardWrappers;
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                    context.wildcardWrappers = newWrappers;
-                    int slashCount = slashCount(newWrapper.name);
-                    if (slashCount > context.nesting) {
-                        context.nesting = slashCount;
-                    }
-                }
+                newWrapperList = wrapperList.addWildcardWrapper(newWrapper);
             } else if (path.startsWith("*.")) {
                 // Extension wrapper
                 String name = path.substring(2);
                 MappedWrapper newWrapper = new MappedWrapper(name, wrapper,
                         jspWildCard, resourceOnly);
-                MappedWrapper[] oldWrappers = context.extensionWrappers;
-                MappedWrapper[] newWrappers =
-                    new MappedWrapper[oldWrappers.length + 1];
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                    context.extensionWrappers = newWrappers;
-                }
+                newWrapperList = wrapperList.addExtensionWrapper(newWrapper);
             } else if (path.equals("/")) {
                 // Default wrapper
                 MappedWrapper newWrapper = new MappedWrapper("", wrapper,
                         jspWildCard, resourceOnly);
-                context.defaultWrapper = newWrapper;
+                newWrapperList = wrapperList.setDefaultWrapper(newWrapper);
             } else {
                 // Exact wrapper
                 final String name;
@@ -501,11 +494,10 @@ public final class Mapper {
                 }
                 MappedWrapper newWrapper = new MappedWrapper(name, wrapper,
                         jspWildCard, resourceOnly);
-                MappedWrapper[] oldWrappers = context.exactWrappers;
-                MappedWrapper[] newWrappers = new MappedWrapper[oldWrappers.length + 1];
-                if (insertMap(oldWrappers, newWrappers, newWrapper)) {
-                    context.exactWrappers = newWrappers;
-                }
+                newWrapperList = wrapperList.addExactWrapper(newWrapper);
+            }
+            if (newWrapperList != null) {
+                context.wrapperList = newWrapperList;
             }
         }
     }
@@ -536,41 +528,19 @@ public final class Mapper {
         }
 
         synchronized (context) {
+            WrapperList wrapperList = context.wrapperList;
+            WrapperList newWrapperList;
             if (path.endsWith("/*")) {
                 // Wildcard wrapper
                 String name = path.substring(0, path.length() - 2);
-                MappedWrapper[] oldWrappers = context.wildcardWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers =
-                    new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    // Recalculate nesting
-                    context.nesting = 0;
-                    for (int i = 0; i < newWrappers.length; i++) {
-                        int slashCount = slashCount(newWrappers[i].name);
-                        if (slashCount > context.nesting) {
-                            context.nesting = slashCount;
-                        }
-                    }
-                    context.wildcardWrappers = newWrappers;
-                }
+                newWrapperList = wrapperList.removeWildcardWrapper(name);
             } else if (path.startsWith("*.")) {
                 // Extension wrapper
                 String name = path.substring(2);
-                MappedWrapper[] oldWrappers = context.extensionWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers =
-                    new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    context.extensionWrappers = newWrappers;
-                }
+                newWrapperList = wrapperList.removeExtensionWrapper(name);
             } else if (path.equals("/")) {
                 // Default wrapper
-                context.defaultWrapper = null;
+                newWrapperList = wrapperList.setDefaultWrapper(null);
             } else {
                 // Exact wrapper
                 String name;
@@ -581,15 +551,10 @@ public final class Mapper {
                 } else {
                     name = path;
                 }
-                MappedWrapper[] oldWrappers = context.exactWrappers;
-                if (oldWrappers.length == 0) {
-                    return;
-                }
-                MappedWrapper[] newWrappers =
-                    new MappedWrapper[oldWrappers.length - 1];
-                if (removeMap(oldWrappers, newWrappers, name)) {
-                    context.exactWrappers = newWrappers;
-                }
+                newWrapperList = wrapperList.removeExactWrapper(name);
+            }
+            if (newWrapperList != null) {
+                context.wrapperList = newWrapperList;
             }
         }
     }
@@ -609,11 +574,14 @@ public final class Mapper {
         if (contextVersion == null) {
             return;
         }
-        int len = contextVersion.welcomeResources.length + 1;
-        String[] newWelcomeResources = new String[len];
-        System.arraycopy(contextVersion.welcomeResources, 0, newWelcomeResources, 0, len - 1);
-        newWelcomeResources[len - 1] = welcomeFile;
-        contextVersion.welcomeResources = newWelcomeResources;
+        synchronized (contextVersion) {
+            String[] welcomeResources = contextVersion.welcomeResources;
+            int len = welcomeResources.length + 1;
+            String[] newWelcomeResources = new String[len];
+            System.arraycopy(welcomeResources, 0, newWelcomeResources, 0, len - 1);
+            newWelcomeResources[len - 1] = welcomeFile;
+            contextVersion.welcomeResources = newWelcomeResources;
+        }
     }
 
 
@@ -631,22 +599,25 @@ public final class Mapper {
         if (contextVersion == null || contextVersion.isPaused()) {
             return;
         }
-        int match = -1;
-        for (int i = 0; i < contextVersion.welcomeResources.length; i++) {
-            if (welcomeFile.equals(contextVersion.welcomeResources[i])) {
-                match = i;
-                break;
+        synchronized (contextVersion) {
+            String[] welcomeResources = contextVersion.welcomeResources;
+            int match = -1;
+            for (int i = 0; i < welcomeResources.length; i++) {
+                if (welcomeFile.equals(welcomeResources[i])) {
+                    match = i;
+                    break;
+                }
             }
-        }
-        if (match > -1) {
-            int len = contextVersion.welcomeResources.length - 1;
-            String[] newWelcomeResources = new String[len];
-            System.arraycopy(contextVersion.welcomeResources, 0, newWelcomeResources, 0, match);
-            if (match < len) {
-                System.arraycopy(contextVersion.welcomeResources, match + 1,
-                        newWelcomeResources, match, len - match);
+            if (match > -1) {
+                int len = welcomeResources.length - 1;
+                String[] newWelcomeResources = new String[len];
+                System.arraycopy(welcomeResources, 0, newWelcomeResources, 0, match);
+                if (match < len) {
+                    System.arraycopy(welcomeResources, match + 1,
+                            newWelcomeResources, match, len - match);
+                }
+                contextVersion.welcomeResources = newWelcomeResources;
             }
-            contextVersion.welcomeResources = newWelcomeResources;
         }
     }
 
@@ -663,7 +634,9 @@ public final class Mapper {
         if (contextVersion == null) {
             return;
         }
-        contextVersion.welcomeResources = new String[0];
+        synchronized (contextVersion) {
+            contextVersion.welcomeResources = new String[0];
+        }
     }
 
 
@@ -851,15 +824,22 @@ public final class Mapper {
 
         path.setOffset(servletPath);
 
+        // Read each snapshot once so that the whole mapping operation sees a
+        // consistent view even if wrappers are (un)registered concurrently
+        WrapperList wrapperList = contextVersion.wrapperList;
+        String[] welcomeResources = contextVersion.welcomeResources;
+        MappedWrapper defaultWrapper = wrapperList.defaultWrapper;
+        int nesting = wrapperList.nesting;
+
         // Rule 1 -- Exact Match
-        MappedWrapper[] exactWrappers = contextVersion.exactWrappers;
+        MappedWrapper[] exactWrappers = wrapperList.exactWrappers;
         internalMapExactWrapper(exactWrappers, path, mappingData);
 
         // Rule 2 -- Prefix Match
         boolean checkJspWelcomeFiles = false;
-        MappedWrapper[] wildcardWrappers = contextVersion.wildcardWrappers;
+        MappedWrapper[] wildcardWrappers = wrapperList.wildcardWrappers;
         if (mappingData.wrapper == null) {
-            internalMapWildcardWrapper(wildcardWrappers, contextVersion.nesting,
+            internalMapWildcardWrapper(wildcardWrappers, nesting,
                                        path, mappingData);
             if (mappingData.wrapper != null && mappingData.jspWildCard) {
                 char[] buf = path.getBuffer();
@@ -892,7 +872,7 @@ public final class Mapper {
         }
 
         // Rule 3 -- Extension Match
-        MappedWrapper[] extensionWrappers = contextVersion.extensionWrappers;
+        MappedWrapper[] extensionWrappers = wrapperList.extensionWrappers;
         if (mappingData.wrapper == null && !checkJspWelcomeFiles) {
             internalMapExtensionWrapper(extensionWrappers, path, mappingData,
                     true);
@@ -906,12 +886,12 @@ public final class Mapper {
                 checkWelcomeFiles = (buf[pathEnd - 1] == '/');
             }
             if (checkWelcomeFiles) {
-                for (int i = 0; (i < contextVersion.welcomeResources.length)
+                for (int i = 0; (i < welcomeResources.length)
                          && (mappingData.wrapper == null); i++) {
                     path.setOffset(pathOffset);
                     path.setEnd(pathEnd);
-                    path.append(contextVersion.welcomeResources[i], 0,
-                            contextVersion.welcomeResources[i].length());
+                    path.append(welcomeResources[i], 0,
+                            welcomeResources[i].length());
                     path.setOffset(servletPath);
 
                     // Rule 4a -- Welcome resources processing for exact macth
@@ -920,7 +900,7 @@ public final class Mapper {
                     // Rule 4b -- Welcome resources processing for prefix match
                     if (mappingData.wrapper == null) {
                         internalMapWildcardWrapper
-                            (wildcardWrappers, contextVersion.nesting,
+                            (wildcardWrappers, nesting,
                              path, mappingData);
                     }
 
@@ -935,9 +915,8 @@ public final class Mapper {
                             internalMapExtensionWrapper(extensionWrappers, path,
                                                         mappingData, true);
                             if (mappingData.wrapper == null
-                                && contextVersion.defaultWrapper != null) {
-                                mappingData.wrapper =
-                                    contextVersion.defaultWrapper.object;
+                                && defaultWrapper != null) {
+                                mappingData.wrapper = defaultWrapper.object;
                                 mappingData.requestPath.setChars
                                     (path.getBuffer(), path.getStart(),
                                      path.getLength());
@@ -971,12 +950,12 @@ public final class Mapper {
                 checkWelcomeFiles = (buf[pathEnd - 1] == '/');
             }
             if (checkWelcomeFiles) {
-                for (int i = 0; (i < contextVersion.welcomeResources.length)
+                for (int i = 0; (i < welcomeResources.length)
                          && (mappingData.wrapper == null); i++) {
                     path.setOffset(pathOffset);
                     path.setEnd(pathEnd);
-                    path.append(contextVersion.welcomeResources[i], 0,
-                                contextVersion.welcomeResources[i].length());
+                    path.append(welcomeResources[i], 0,
+                                welcomeResources[i].length());
                     path.setOffset(servletPath);
                     internalMapExtensionWrapper(extensionWrappers, path,
                                                 mappingData, false);
@@ -990,8 +969,8 @@ public final class Mapper {
 
         // Rule 7 -- Default servlet
         if (mappingData.wrapper == null && !checkJspWelcomeFiles) {
-            if (contextVersion.defaultWrapper != null) {
-                mappingData.wrapper = contextVersion.defaultWrapper.object;
+            if (defaultWrapper != null) {
+                mappingData.wrapper = defaultWrapper.object;
                 mappingData.requestPath.setChars
                     (path.getBuffer(), path.getStart(), path.getLength());
                 mappingData.wrapperPath.setChars
@@ -1655,12 +1634,8 @@ public final class Mapper {
         public final String path;
         public final int slashCount;
         public final WebResourceRoot resources;
-        public String[] welcomeResources;
-        public MappedWrapper defaultWrapper = null;
-        public MappedWrapper[] exactWrappers = new MappedWrapper[0];
-        public MappedWrapper[] wildcardWrappers = new MappedWrapper[0];
-        public MappedWrapper[] extensionWrappers = new MappedWrapper[0];
-        public int nesting = 0;
+        public volatile String[] welcomeResources;
+        public volatile WrapperList wrapperList = new WrapperList();
         private volatile boolean paused;
 
         public ContextVersion(String version, String path, int slashCount,
@@ -1682,6 +1657,114 @@ public final class Mapper {
         }
     }
 
+    // ------------------------------------------------ WrapperList Inner Class
+
+
+    /**
+     * Immutable snapshot of the wrapper mappings of a context version. Every
+     * modification creates a new instance that is then published through the
+     * volatile {@link ContextVersion#wrapperList} field, so that request
+     * mapping never needs to take a lock.
+     */
+    protected static final class WrapperList {
+
+        public final MappedWrapper defaultWrapper;
+        public final MappedWrapper[] exactWrappers;
+        public final MappedWrapper[] wildcardWrappers;
+        public final MappedWrapper[] extensionWrappers;
+        public final int nesting;
+
+        public WrapperList() {
+            this(null, new MappedWrapper[0], new MappedWrapper[0],
+                    new MappedWrapper[0], 0);
+        }
+
+        private WrapperList(MappedWrapper defaultWrapper,
+                MappedWrapper[] exactWrappers, MappedWrapper[] wildcardWrappers,
+                MappedWrapper[] extensionWrappers, int nesting) {
+            this.defaultWrapper = defaultWrapper;
+            this.exactWrappers = exactWrappers;
+            this.wildcardWrappers = wildcardWrappers;
+            this.extensionWrappers = extensionWrappers;
+            this.nesting = nesting;
+        }
+
+        public WrapperList setDefaultWrapper(MappedWrapper newDefaultWrapper) {
+            return new WrapperList(newDefaultWrapper, exactWrappers,
+                    wildcardWrappers, extensionWrappers, nesting);
+        }
+
+        public WrapperList addExactWrapper(MappedWrapper newWrapper) {
+            MappedWrapper[] newWrappers = new MappedWrapper[exactWrappers.length + 1];
+            if (insertMap(exactWrappers, newWrappers, newWrapper)) {
+                return new WrapperList(defaultWrapper, newWrappers,
+                        wildcardWrappers, extensionWrappers, nesting);
+            }
+            return null;
+        }
+
+        public WrapperList removeExactWrapper(String name) {
+            if (exactWrappers.length == 0) {
+                return null;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[exactWrappers.length - 1];
+            if (removeMap(exactWrappers, newWrappers, name)) {
+                return new WrapperList(defaultWrapper, newWrappers,
+                        wildcardWrappers, extensionWrappers, nesting);
+            }
+            return null;
+        }
+
+        public WrapperList addWildcardWrapper(MappedWrapper newWrapper) {
+            MappedWrapper[] newWrappers = new MappedWrapper[wildcardWrappers.length + 1];
+            if (insertMap(wildcardWrappers, newWrappers, newWrapper)) {
+                return new WrapperList(defaultWrapper, exactWrappers,
+                        newWrappers, extensionWrappers,
+                        Math.max(nesting, slashCount(newWrapper.name)));
+            }
+            return null;
+        }
+
+        public WrapperList removeWildcardWrapper(String name) {
+            if (wildcardWrappers.length == 0) {
+                return null;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[wildcardWrappers.length - 1];
+            if (removeMap(wildcardWrappers, newWrappers, name)) {
+                // Recalculate nesting
+                int newNesting = 0;
+                for (MappedWrapper wrapper : newWrappers) {
+                    newNesting = Math.max(newNesting, slashCount(wrapper.name));
+                }
+                return new WrapperList(defaultWrapper, exactWrappers,
+                        newWrappers, extensionWrappers, newNesting);
+            }
+            return null;
+        }
+
+        public WrapperList addExtensionWrapper(MappedWrapper newWrapper) {
+            MappedWrapper[] newWrappers = new MappedWrapper[extensionWrappers.length + 1];
+            if (insertMap(extensionWrappers, newWrappers, newWrapper)) {
+                return new WrapperList(defaultWrapper, exactWrappers,
+                        wildcardWrappers, newWrappers, nesting);
+            }
+            return null;
+        }
+
+        public WrapperList removeExtensionWrapper(String name) {
+            if (extensionWrappers.length == 0) {
+                return null;
+            }
+            MappedWrapper[] newWrappers = new MappedWrapper[extensionWrappers.length - 1];
+            if (removeMap(extensionWrappers, newWrappers, name)) {
+                return new WrapperList(defaultWrapper, exactWrappers,
+                        wildcardWrappers, newWrappers, nesting);
+            }
+            return null;
+        }
+    }
+
+
     // ---------------------------------------------------- Wrapper Inner Class
 
 
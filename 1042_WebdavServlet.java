@@ -236,12 +236,15 @@ public class WebdavServlet
 
 
     /**
-     * Vector of the heritable locks.
+     * Repository of the heritable locks. There is at most one lock per path,
+     * so the locks covering a resource are found by looking up the path of
+     * the resource and of each of its parent collections.
      * <p>
      * Key : path <br>
      * Value : LockInfo
      */
-    private Vector<LockInfo> collectionLocks = new Vector<LockInfo>();
+    private Hashtable<String,LockInfo> collectionLocks =
+        new Hashtable<String,LockInfo>();
 
 
     /**
@@ -583,75 +586,92 @@ public class WebdavServlet
             parseProperties(req, generatedXML, path, type,
                             properties);
         } else {
-            // The stack always contains the object of the current level
-            Stack<String> stack = new Stack<String>();
-            stack.push(path);
+            // The tree is walked depth first, so that only the members of
+            // one collection per level are pending and the response of each
+            // resource is sent as soon as it has been generated
 
-            // Stack of the objects one level below
-            Stack<String> stackBelow = new Stack<String>();
+            // Paths of the collections being listed
+            Stack<String> collections = new Stack<String>();
+            // Remaining members of the collections being listed
+            Stack<NamingEnumeration<NameClassPair>> members =
+                new Stack<NamingEnumeration<NameClassPair>>();
 
-            while ((!stack.isEmpty()) && (depth >= 0)) {
+            try {
+                String currentPath = path;
+                while (currentPath != null) {
 
-                String currentPath = stack.pop();
-                parseProperties(req, generatedXML, currentPath,
-                                type, properties);
+                    parseProperties(req, generatedXML, currentPath,
+                                    type, properties);
 
-                try {
-                    object = resources.lookup(currentPath);
-                } catch (NamingException e) {
-                    continue;
-                }
+                    if (collections.size() < depth) {
 
-                if ((object instanceof DirContext) && (depth > 0)) {
+                        try {
+                            object = resources.lookup(currentPath);
+                        } catch (NamingException e) {
+                            object = null;
+                        }
+
+                        if (object instanceof DirContext) {
+
+                            try {
+                                members.push(resources.list(currentPath));
+                            } catch (NamingException e) {
+                                resp.sendError
+                                    (HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
+                                     path);
+                                return;
+                            }
+                            collections.push(currentPath);
+
+                            // Displaying the lock-null resources present in
+                            // that collection
+                            String lockPath = currentPath;
+                            if (lockPath.endsWith("/"))
+                                lockPath =
+                                    lockPath.substring(0, lockPath.length() - 1);
+                            Vector<String> currentLockNullResources =
+                                lockNullResources.get(lockPath);
+                            if (currentLockNullResources != null) {
+                                Enumeration<String> lockNullResourcesList =
+                                    currentLockNullResources.elements();
+                                while (lockNullResourcesList.hasMoreElements()) {
+                                    String lockNullPath =
+                                        lockNullResourcesList.nextElement();
+                                    parseLockNullProperties
+                                        (req, generatedXML, lockNullPath, type,
+                                         properties);
+                                }
+                            }
 
-                    try {
-                        NamingEnumeration<NameClassPair> enumeration =
-                            resources.list(currentPath);
-                        while (enumeration.hasMoreElements()) {
-                            NameClassPair ncPair = enumeration.nextElement();
-                            String newPath = currentPath;
-                            if (!(newPath.endsWith("/")))
-                                newPath += "/";
-                            newPath += ncPair.getName();
-                            stackBelow.push(newPath);
                         }
-                    } catch (NamingException e) {
-                        resp.sendError
-                            (HttpServletResponse.SC_INTERNAL_SERVER_ERROR,
-                             path);
-                        return;
                     }
 
-                    // Displaying the lock-null resources present in that
-                    // collection
-                    String lockPath = currentPath;
-                    if (lockPath.endsWith("/"))
-                        lockPath =
-                            lockPath.substring(0, lockPath.length() - 1);
-                    Vector<String> currentLockNullResources =
-                        lockNullResources.get(lockPath);
-                    if (currentLockNullResources != null) {
-                        Enumeration<String> lockNullResourcesList =
-                            currentLockNullResources.elements();
-                        while (lockNullResourcesList.hasMoreElements()) {
-                            String lockNullPath =
-                                lockNullResourcesList.nextElement();
-                            parseLockNullProperties
-                                (req, generatedXML, lockNullPath, type,
-                                 properties);
+                    generatedXML.sendData();
+
+                    // Next member of the deepest collection which has any
+                    // left
+                    currentPath = null;
+                    while ((currentPath == null) && (!members.isEmpty())) {
+                        NamingEnumeration<NameClassPair> enumeration =
+                            members.peek();
+                        if (enumeration.hasMoreElements()) {
+                            String newPath = collections.peek();
+                            if (!(newPath.endsWith("/")))
+                                newPath += "/";
+                            currentPath =
+                                newPath + enumeration.nextElement().getName();
+                        } else {
+                            members.pop();
+                            collections.pop();
+                            close(enumeration);
                         }
                     }
 
                 }
-
-                if (stack.isEmpty()) {
-                    depth--;
-                    stack = stackBelow;
-                    stackBelow = new Stack<String>();
+            } finally {
+                while (!members.isEmpty()) {
+                    close(members.pop());
                 }
-
-                generatedXML.sendData();
-
             }
         }
 
@@ -1204,7 +1224,7 @@ public class WebdavServlet
 
                 if (addLock) {
                     lock.tokens.addElement(lockToken);
-                    collectionLocks.addElement(lock);
+                    collectionLocks.put(lock.path, lock);
                 }
 
             } else {
@@ -1400,7 +1420,7 @@ public class WebdavServlet
                 }
 
                 if (lock.tokens.isEmpty()) {
-                    collectionLocks.removeElement(lock);
+                    collectionLocks.remove(lock.path);
                     // Removing any lock-null resource which would be present
                     lockNullResources.remove(path);
                 }
@@ -1546,24 +1566,21 @@ public class WebdavServlet
 
         // Checking inheritable collection locks
 
-        Enumeration<LockInfo> collectionLocksList = collectionLocks.elements();
+        Enumeration<LockInfo> collectionLocksList =
+            getCollectionLocks(path).elements();
         while (collectionLocksList.hasMoreElements()) {
             lock = collectionLocksList.nextElement();
-            if (lock.hasExpired()) {
-                collectionLocks.removeElement(lock);
-            } else if (path.startsWith(lock.path)) {
-
-                tokenList = lock.tokens.elements();
-                boolean tokenMatch = false;
-                while (tokenList.hasMoreElements()) {
-                    String token = tokenList.nextElement();
-                    if (ifHeader.indexOf(token) != -1)
-                        tokenMatch = true;
-                }
-                if (!tokenMatch)
-                    return true;
 
+            tokenList = lock.tokens.elements();
+            boolean tokenMatch = false;
+            while (tokenList.hasMoreElements()) {
+                String token = tokenList.nextElement();
+                if (ifHeader.indexOf(token) != -1)
+                    tokenMatch = true;
             }
+            if (!tokenMatch)
+                return true;
+
         }
 
         return false;
@@ -1571,6 +1588,67 @@ public class WebdavServlet
     }
 
 
+    /**
+     * Get the inheritable locks which apply to a resource, that is the locks
+     * on the path of the resource and on the paths of its parent collections,
+     * with or without a trailing slash. Expired locks are removed.
+     *
+     * @param path Path of the resource
+     * @return the locks, from the outermost collection to the resource
+     */
+    private Vector<LockInfo> getCollectionLocks(String path) {
+
+        Vector<LockInfo> result = new Vector<LockInfo>();
+        if (collectionLocks.isEmpty())
+            return result;
+
+        int slash = -1;
+        do {
+            slash = path.indexOf('/', slash + 1);
+            if (slash == -1) {
+                addCollectionLock(path, result);
+            } else {
+                addCollectionLock(path.substring(0, slash), result);
+                if (slash + 1 < path.length())
+                    addCollectionLock(path.substring(0, slash + 1), result);
+            }
+        } while (slash != -1);
+
+        return result;
+
+    }
+
+
+    /**
+     * Add the inheritable lock on the given path, if there is one which has
+     * not expired, to the given locks.
+     */
+    private void addCollectionLock(String lockPath, Vector<LockInfo> locks) {
+
+        LockInfo lock = collectionLocks.get(lockPath);
+        if (lock == null)
+            return;
+        if (lock.hasExpired()) {
+            collectionLocks.remove(lockPath);
+        } else {
+            locks.addElement(lock);
+        }
+
+    }
+
+
+    /**
+     * Close a naming enumeration, ignoring any errors.
+     */
+    private void close(NamingEnumeration<?> enumeration) {
+        try {
+            enumeration.close();
+        } catch (NamingException e) {
+            // Ignore
+        }
+    }
+
+
     /**
      * Copy a resource.
      *
@@ -2602,7 +2680,8 @@ public class WebdavServlet
         (String path, XMLWriter generatedXML) {
 
         LockInfo resourceLock = resourceLocks.get(path);
-        Enumeration<LockInfo> collectionLocksList = collectionLocks.elements();
+        Enumeration<LockInfo> collectionLocksList =
+            getCollectionLocks(path).elements();
 
         boolean wroteStart = false;
 
@@ -2615,14 +2694,12 @@ public class WebdavServlet
 
         while (collectionLocksList.hasMoreElements()) {
             LockInfo currentLock = collectionLocksList.nextElement();
-            if (path.startsWith(currentLock.path)) {
-                if (!wroteStart) {
-                    wroteStart = true;
-                    generatedXML.writeElement(null, "lockdiscovery",
-                                              XMLWriter.OPENING);
-                }
-                currentLock.toXML(generatedXML);
+            if (!wroteStart) {
+                wroteStart = true;
+                generatedXML.writeElement(null, "lockdiscovery",
+                                          XMLWriter.OPENING);
             }
+            currentLock.toXML(generatedXML);
         }
 
         if (wroteStart) {
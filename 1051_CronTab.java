@@ -64,6 +64,11 @@ public final class CronTab {
      */
     private @CheckForNull String specTimezone;
 
+    /**
+     * {@link #specTimezone} resolved once, as {@link #check(Calendar)} runs for every job every minute.
+     */
+    private @CheckForNull TimeZone parsedSpecTimeZone;
+
     public CronTab(String format) throws ANTLRException {
         this(format,null);
     }
@@ -114,6 +119,7 @@ public final class CronTab {
         parser.setHash(hash);
         spec = format;
         specTimezone = timezone;
+        parsedSpecTimeZone = timezone != null && !timezone.isEmpty() ? TimeZone.getTimeZone(timezone) : null;
 
         parser.startRule(this);
         if((dayOfWeek&(1<<7))!=0) {
@@ -130,8 +136,8 @@ public final class CronTab {
 
         Calendar checkCal = cal;
 
-        if(specTimezone != null && !specTimezone.isEmpty()) {
-            Calendar tzCal = Calendar.getInstance(TimeZone.getTimeZone(specTimezone));
+        if(parsedSpecTimeZone != null) {
+            Calendar tzCal = Calendar.getInstance(parsedSpecTimeZone);
             tzCal.setTime(cal.getTime());
             checkCal = tzCal;
         }
@@ -219,12 +225,9 @@ public final class CronTab {
          * If there's no such bit, return -1. Note that if 'n' already matches the crontab, the same n will be returned.
          */
         private int ceil(CronTab c, int n) {
-            long bits = bits(c);
-            while ((bits|(1L<<n))!=bits) {
-                if (n>60)   return -1;
-                n++;
-            }
-            return n;
+            // clear all the bits below n and pick the lowest remaining one
+            long bits = bits(c) & (-1L << n);
+            return bits==0 ? -1 : Long.numberOfTrailingZeros(bits);
         }
 
         /**
@@ -234,13 +237,14 @@ public final class CronTab {
             return ceil(c,0);
         }
 
+        /**
+         * Given the value 'n', finds the largest x such that x matches the specified {@link CronTab}
+         * and x&lt;=n (inclusive), or -1 if there's no such bit.
+         */
         private int floor(CronTab c, int n) {
-            long bits = bits(c);
-            while ((bits|(1L<<n))!=bits) {
-                if (n==0)   return -1;
-                n--;
-            }
-            return n;
+            // clear all the bits above n and pick the highest remaining one
+            long bits = bits(c) & (-1L >>> (63-n));
+            return bits==0 ? -1 : 63-Long.numberOfLeadingZeros(bits);
         }
 
         private int last(CronTab c) {
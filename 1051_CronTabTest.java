@@ -134,6 +134,17 @@ public class CronTabTest {
         assertEquals(expectedDate.get(Calendar.DAY_OF_MONTH), next.get(Calendar.DAY_OF_MONTH)); // FAILS: is Monday, Jan 10th, 23:00
     }
 
+    @Test
+    public void testCeilFieldBoundaries() throws Exception {
+        // the highest bit of each field must be found, and the roll up must happen past it
+        CronTab x = new CronTab("59 23 31 12 *");
+        compare(new GregorianCalendar(2000,11,31,23,59),x.ceil(new GregorianCalendar(2000,0,1,0,0)));
+        compare(new GregorianCalendar(2001,11,31,23,59),x.ceil(new GregorianCalendar(2001,0,1,0,0)));
+
+        x = new CronTab("0 0 1 1 *");
+        compare(new GregorianCalendar(2001,0,1,0,0),x.ceil(new GregorianCalendar(2000,0,1,0,1)));
+    }
+
     @Test
     public void testFloor1() throws Exception {
         CronTab x = new CronTab("30 * * * *");
@@ -162,6 +173,17 @@ public class CronTabTest {
         compare(new GregorianCalendar(2010,7,1,0,0),x.floor(c));
     }
 
+    @Test
+    public void testFloorFieldBoundaries() throws Exception {
+        // the lowest bit of each field must be found, and the borrow must happen below it
+        CronTab x = new CronTab("0 0 1 1 *");
+        compare(new GregorianCalendar(2000,0,1,0,0),x.floor(new GregorianCalendar(2000,11,31,23,59)));
+        compare(new GregorianCalendar(2000,0,1,0,0),x.floor(new GregorianCalendar(2000,5,15,12,30)));
+
+        x = new CronTab("59 23 31 12 *");
+        compare(new GregorianCalendar(1999,11,31,23,59),x.floor(new GregorianCalendar(2000,11,31,23,58)));
+    }
+
     @Issue("JENKINS-8401")
     @Test
     public void testFloor4() throws Exception {
@@ -18,8 +18,15 @@
  */
 package org.apache.commons.compress.compressors.bzip2;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import org.apache.commons.compress.compressors.CompressorOutputStream;
 
@@ -116,6 +123,16 @@ import org.apache.commons.compress.compressors.CompressorOutputStream;
  * </p>
  *
  * <p>
+ * Blocks are independent of each other so they may be sorted and
+ * Huffman coded concurrently by passing an {@link ExecutorService}
+ * to the {@link #BZip2CompressorOutputStream(OutputStream, int,
+ * ExecutorService, int) constructor}. The blocks are still written in
+ * order and the output is identical to that of the sequential stream.
+ * Each block in flight needs its own block buffers, so the memory
+ * usage grows with the parallelism accordingly.
+ * </p>
+ *
+ * <p>
  * Instances of this class are not threadsafe.
  * </p>
  *
@@ -325,6 +342,23 @@ public class BZip2CompressorOutputStream extends CompressorOutputStream
 
     private OutputStream out;
 
+    /**
+     * Used to compress blocks concurrently, null if the blocks are
+     * compressed by the writing thread.
+     */
+    private ExecutorService executor;
+    private int parallelism;
+    private final LinkedList<Future<BZip2CompressorOutputStream>> pendingBlocks =
+        new LinkedList<Future<BZip2CompressorOutputStream>>();
+    private final LinkedList<BZip2CompressorOutputStream> idleWorkers =
+        new LinkedList<BZip2CompressorOutputStream>();
+
+    /**
+     * Receives the compressed bits of a single block if this instance
+     * compresses blocks on behalf of a parallel stream.
+     */
+    private final ByteArrayOutputStream blockOut;
+
     /**
      * Chooses a blocksize based on the given length of the data to compress.
      *
@@ -394,9 +428,67 @@ public class BZip2CompressorOutputStream extends CompressorOutputStream
         /* 20 is just a paranoia constant */
         this.allowableBlockSize = (this.blockSize100k * BZip2Constants.BASEBLOCKSIZE) - 20;
         this.out = out;
+        this.blockOut = null;
         init();
     }
 
+    /**
+     * Constructs a new <tt>CBZip2OutputStream</tt> with specified
+     * blocksize that sorts and Huffman codes up to
+     * <code>parallelism</code> blocks concurrently using the given
+     * executor.
+     *
+     * @param out
+     *            the destination stream.
+     * @param blockSize
+     *            the blockSize as 100k units.
+     * @param executor
+     *            the executor that compresses the blocks.
+     * @param parallelism
+     *            the maximum number of blocks compressed concurrently.
+     *
+     * @throws IOException
+     *             if an I/O error occurs in the specified stream.
+     * @throws IllegalArgumentException
+     *             if <code>(blockSize < 1) || (blockSize > 9)</code> or
+     *             <code>parallelism < 1</code>.
+     * @throws NullPointerException
+     *             if <code>out == null</code> or
+     *             <code>executor == null</code>.
+     */
+    public BZip2CompressorOutputStream(final OutputStream out,
+                                       final int blockSize,
+                                       final ExecutorService executor,
+                                       final int parallelism)
+        throws IOException {
+        this(out, blockSize);
+
+        if (executor == null) {
+            throw new NullPointerException("executor");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism(" + parallelism
+                                               + ") < 1");
+        }
+
+        this.executor = executor;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Constructs an instance that compresses single blocks on behalf
+     * of a parallel stream into memory.
+     */
+    private BZip2CompressorOutputStream(final int blockSize) {
+        super();
+
+        this.blockSize100k = blockSize;
+        this.allowableBlockSize = 0;
+        this.blockOut = new ByteArrayOutputStream(blockSize * BZip2Constants.BASEBLOCKSIZE / 2);
+        this.data = new Data(blockSize);
+        this.blockSorter = new BlockSort(this.data);
+    }
+
     /** {@inheritDoc} */
     @Override
     public void write(final int b) throws IOException {
@@ -492,11 +584,19 @@ public class BZip2CompressorOutputStream extends CompressorOutputStream
                 }
                 this.currentChar = -1;
                 endBlock();
+                while (!pendingBlocks.isEmpty()) {
+                    writePendingBlock();
+                }
                 endCompression();
             } finally {
                 this.out = null;
                 this.data = null;
                 this.blockSorter = null;
+                for (Future<BZip2CompressorOutputStream> f : pendingBlocks) {
+                    f.cancel(true);
+                }
+                pendingBlocks.clear();
+                idleWorkers.clear();
             }
         }
     }
@@ -561,6 +661,17 @@ public class BZip2CompressorOutputStream extends CompressorOutputStream
             return;
         }
 
+        if (this.executor != null) {
+            submitBlock();
+        } else {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Sorts and Huffman codes the current block and writes it.
+     */
+    private void writeBlock() throws IOException {
         /* sort the block and establish posn of original string */
         final boolean blockRandomised = blockSort();
 
@@ -596,6 +707,96 @@ public class BZip2CompressorOutputStream extends CompressorOutputStream
         moveToFrontCodeAndSend();
     }
 
+    /**
+     * Hands the current block over to a worker that compresses it
+     * asynchronously, in exchange for the worker's empty block
+     * buffers.
+     *
+     * <p>Waits for the oldest pending block to be written first if
+     * the maximum number of blocks are in flight already.</p>
+     */
+    private void submitBlock() throws IOException {
+        if (pendingBlocks.size() >= parallelism) {
+            writePendingBlock();
+        }
+
+        final BZip2CompressorOutputStream worker = idleWorkers.isEmpty()
+            ? new BZip2CompressorOutputStream(this.blockSize100k)
+            : idleWorkers.removeFirst();
+
+        // A Data instance and the BlockSort using it always go together
+        final Data dataShadow = worker.data;
+        final BlockSort blockSorterShadow = worker.blockSorter;
+        worker.data = this.data;
+        worker.blockSorter = this.blockSorter;
+        worker.last = this.last;
+        worker.blockCRC = this.blockCRC;
+        this.data = dataShadow;
+        this.blockSorter = blockSorterShadow;
+
+        pendingBlocks.add(executor.submit(new Callable<BZip2CompressorOutputStream>() {
+                public BZip2CompressorOutputStream call() throws IOException {
+                    return worker.compressBlock();
+                }
+            }));
+    }
+
+    /**
+     * Compresses the block into {@link #blockOut}. Runs on a thread
+     * of the executor of the parallel stream.
+     *
+     * <p>Only whole bytes are written to blockOut, the remaining bits
+     * are left in bsBuff for the parallel stream to pick up.</p>
+     */
+    private BZip2CompressorOutputStream compressBlock() throws IOException {
+        this.blockOut.reset();
+        this.bsBuff = 0;
+        this.bsLive = 0;
+        this.out = this.blockOut;
+        try {
+            writeBlock();
+            while (this.bsLive >= 8) {
+                this.out.write(this.bsBuff >> 24);
+                this.bsBuff <<= 8;
+                this.bsLive -= 8;
+            }
+        } finally {
+            this.out = null;
+        }
+        return this;
+    }
+
+    /**
+     * Waits for the oldest pending block and appends its bits to the
+     * stream.
+     */
+    private void writePendingBlock() throws IOException {
+        final BZip2CompressorOutputStream worker;
+        try {
+            worker = pendingBlocks.removeFirst().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while compressing block");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            IOException ioe = new IOException("failed to compress block");
+            ioe.initCause(e.getCause());
+            throw ioe;
+        }
+
+        // The block does not start at a byte boundary in general
+        final byte[] bytes = worker.blockOut.toByteArray();
+        for (int i = 0; i < bytes.length; i++) {
+            bsW(8, bytes[i] & 0xff);
+        }
+        if (worker.bsLive > 0) {
+            bsW(worker.bsLive, worker.bsBuff >>> (32 - worker.bsLive));
+        }
+        idleWorkers.add(worker);
+    }
+
     private void endCompression() throws IOException {
         /*
          * Now another magic 48-bit number, 0x177245385090, to indicate the end
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.commons.compress.compressors.bzip2;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class BZip2CompressorOutputStreamTest {
+
+    /**
+     * Random letters interrupted by regular runs of a single byte.
+     */
+    private static byte[] createInput(final int length) {
+        final Random random = new Random(42);
+        final byte[] input = new byte[length];
+        for (int i = 0; i < length; i++) {
+            if (i % 5000 < 300) {
+                input[i] = 'x';
+            } else {
+                input[i] = (byte) ('a' + random.nextInt(20));
+            }
+        }
+        return input;
+    }
+
+    private static byte[] compress(final byte[] input, final int blockSize,
+                                   final ExecutorService executor,
+                                   final int parallelism)
+        throws IOException {
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        final BZip2CompressorOutputStream out = executor == null
+            ? new BZip2CompressorOutputStream(bos, blockSize)
+            : new BZip2CompressorOutputStream(bos, blockSize, executor,
+                                              parallelism);
+        out.write(input);
+        out.close();
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testParallelOutputIsIdenticalToSequentialOutput()
+        throws IOException {
+        final byte[] input = createInput(450000);
+        final byte[] expected = compress(input, 1, null, 0);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int parallelism = 1; parallelism <= 4; parallelism++) {
+                assertArrayEquals("parallelism " + parallelism, expected,
+                                  compress(input, 1, executor, parallelism));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testParallelOutputCanBeDecompressed() throws IOException {
+        final byte[] input = createInput(250000);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(2);
+        final byte[] compressed;
+        try {
+            compressed = compress(input, 1, executor, 2);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        final InputStream in =
+            new BZip2CompressorInputStream(new ByteArrayInputStream(compressed));
+        final ByteArrayOutputStream decompressed = new ByteArrayOutputStream();
+        final byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            decompressed.write(buf, 0, n);
+        }
+        in.close();
+        assertArrayEquals(input, decompressed.toByteArray());
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.springframework.messaging.simp.broker;
 
-import java.util.Collection;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -78,6 +77,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	private final DestinationCache destinationCache = new DestinationCache();
 
+	private final DestinationIndex destinationIndex = new DestinationIndex();
+
 	private final SessionSubscriptionRegistry subscriptionRegistry = new SessionSubscriptionRegistry();
 
 
@@ -158,6 +159,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			}
 		}
 		this.subscriptionRegistry.addSubscription(sessionId, subsId, destination, expression);
+		this.destinationIndex.addSubscription(destination, sessionId, subsId);
 		this.destinationCache.updateAfterNewSubscription(destination, sessionId, subsId);
 	}
 
@@ -167,6 +169,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 		if (info != null) {
 			String destination = info.removeSubscription(subsId);
 			if (destination != null) {
+				this.destinationIndex.removeSubscription(destination, sessionId, subsId);
 				this.destinationCache.updateAfterRemovedSubscription(sessionId, subsId);
 			}
 		}
@@ -176,6 +179,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	public void unregisterAllSubscriptions(String sessionId) {
 		SessionSubscriptionInfo info = this.subscriptionRegistry.removeSubscriptions(sessionId);
 		if (info != null) {
+			this.destinationIndex.removeSession(info);
 			this.destinationCache.updateAfterRemovedSession(info);
 		}
 	}
@@ -233,7 +237,8 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 
 	@Override
 	public String toString() {
-		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " + this.subscriptionRegistry + "]";
+		return "DefaultSubscriptionRegistry[" + this.destinationCache + ", " +
+				this.destinationIndex + ", " + this.subscriptionRegistry + "]";
 	}
 
 
@@ -268,16 +273,7 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			LinkedMultiValueMap<String, String> result = this.accessCache.get(destination);
 			if (result == null) {
 				synchronized (this.updateCache) {
-					result = new LinkedMultiValueMap<>();
-					for (SessionSubscriptionInfo info : subscriptionRegistry.getAllSubscriptions()) {
-						for (String destinationPattern : info.getDestinations()) {
-							if (getPathMatcher().match(destinationPattern, destination)) {
-								for (Subscription subscription : info.getSubscriptions(destinationPattern)) {
-									result.add(info.sessionId, subscription.getId());
-								}
-							}
-						}
-					}
+					result = destinationIndex.findSubscriptions(destination);
 					if (!result.isEmpty()) {
 						this.updateCache.put(destination, result.deepCopy());
 						this.accessCache.put(destination, result);
@@ -360,6 +356,76 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 	}
 
 
+	/**
+	 * An index of all subscriptions by subscribed destination, updated as
+	 * subscriptions come and go. Resolving a destination that is not in the
+	 * {@link DestinationCache} then runs the {@link PathMatcher} once per
+	 * distinct subscribed destination, rather than once per subscription of
+	 * every session. Every subscribed destination is matched, including those
+	 * that are not patterns, since a {@code PathMatcher} such as a
+	 * case-insensitive {@link AntPathMatcher} may match destinations that are
+	 * not equal.
+	 */
+	private class DestinationIndex {
+
+		/** Map from subscribed destination -> sessionId -> subscription ids */
+		private final ConcurrentMap<String, ConcurrentMap<String, Set<String>>> subscriptions =
+				new ConcurrentHashMap<>();
+
+		public void addSubscription(String destination, String sessionId, String subsId) {
+			this.subscriptions.compute(destination, (key, sessionMap) -> {
+				if (sessionMap == null) {
+					sessionMap = new ConcurrentHashMap<>(4);
+				}
+				sessionMap.computeIfAbsent(sessionId, id -> new CopyOnWriteArraySet<>()).add(subsId);
+				return sessionMap;
+			});
+		}
+
+		public void removeSubscription(String destination, String sessionId, String subsId) {
+			this.subscriptions.computeIfPresent(destination, (key, sessionMap) -> {
+				sessionMap.computeIfPresent(sessionId, (id, subsIds) -> {
+					subsIds.remove(subsId);
+					return (subsIds.isEmpty() ? null : subsIds);
+				});
+				return (sessionMap.isEmpty() ? null : sessionMap);
+			});
+		}
+
+		public void removeSession(SessionSubscriptionInfo info) {
+			for (String destination : info.getDestinations()) {
+				this.subscriptions.computeIfPresent(destination, (key, sessionMap) -> {
+					sessionMap.remove(info.getSessionId());
+					return (sessionMap.isEmpty() ? null : sessionMap);
+				});
+			}
+		}
+
+		public LinkedMultiValueMap<String, String> findSubscriptions(String destination) {
+			LinkedMultiValueMap<String, String> result = new LinkedMultiValueMap<>();
+			for (Map.Entry<String, ConcurrentMap<String, Set<String>>> entry : this.subscriptions.entrySet()) {
+				if (getPathMatcher().match(entry.getKey(), destination)) {
+					addSubscriptions(result, entry.getValue());
+				}
+			}
+			return result;
+		}
+
+		private void addSubscriptions(LinkedMultiValueMap<String, String> result, Map<String, Set<String>> sessionMap) {
+			for (Map.Entry<String, Set<String>> entry : sessionMap.entrySet()) {
+				for (String subsId : entry.getValue()) {
+					result.add(entry.getKey(), subsId);
+				}
+			}
+		}
+
+		@Override
+		public String toString() {
+			return "index[" + this.subscriptions.size() + " destination(s)]";
+		}
+	}
+
+
 	/**
 	 * Provide access to session subscriptions by sessionId.
 	 */
@@ -373,10 +439,6 @@ public class DefaultSubscriptionRegistry extends AbstractSubscriptionRegistry {
 			return this.sessions.get(sessionId);
 		}
 
-		public Collection<SessionSubscriptionInfo> getAllSubscriptions() {
-			return this.sessions.values();
-		}
-
 		public SessionSubscriptionInfo addSubscription(String sessionId, String subscriptionId,
 				String destination, @Nullable Expression selectorExpression) {
 
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.messaging.simp.broker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.MultiValueMap;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the destination index of {@link DefaultSubscriptionRegistry},
+ * which resolves destinations that are not in the destination cache. Each
+ * destination is only looked up once per test so that it is resolved through
+ * the index.
+ */
+public class DefaultSubscriptionRegistryIndexTests {
+
+	private final DefaultSubscriptionRegistry registry = new DefaultSubscriptionRegistry();
+
+
+	@Test
+	public void literalDestination() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub1", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub2", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess3", "sub1", "/topic/b"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(2, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+		assertEquals(Arrays.asList("sub1", "sub2"), sort(actual.get("sess2")));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/b"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess3"));
+
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/c")).size());
+	}
+
+	@Test
+	public void singleSegmentPattern() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub1", "/topic/a"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(2, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess2"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/b"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/a/b")).size());
+	}
+
+	@Test
+	public void multiSegmentPattern() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub2", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub1", "/queue/**"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a/b"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(1, actual.size());
+		assertEquals(Arrays.asList("sub1", "sub2"), sort(actual.get("sess1")));
+
+		actual = this.registry.findSubscriptions(createMessage("/queue/a/b/c"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess2"));
+	}
+
+	@Test
+	public void unsubscribe() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub2", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub1", "/topic/*"));
+		this.registry.registerSubscription(subscribeMessage("sess3", "sub1", "/topic/b"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "sub2"));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(2, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess2"));
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/c"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess2"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess2", "sub1"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/d")).size());
+		actual = this.registry.findSubscriptions(createMessage("/topic/b"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess3"));
+
+		this.registry.unregisterSubscription(unsubscribeMessage("sess1", "sub1"));
+		this.registry.unregisterSubscription(unsubscribeMessage("sess3", "sub1"));
+		assertEquals("index[0 destination(s)]", getIndexDescription());
+	}
+
+	@Test
+	public void sessionDisconnect() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/a"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub2", "/topic/**"));
+		this.registry.registerSubscription(subscribeMessage("sess2", "sub1", "/topic/a"));
+
+		this.registry.unregisterAllSubscriptions("sess1");
+		assertEquals("index[1 destination(s)]", getIndexDescription());
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess2"));
+		assertEquals(0, this.registry.findSubscriptions(createMessage("/topic/b")).size());
+
+		this.registry.unregisterAllSubscriptions("sess2");
+		assertEquals("index[0 destination(s)]", getIndexDescription());
+	}
+
+	@Test
+	public void nonPatternMatchedByPathMatcher() {
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/A"));
+
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(1, actual.size());
+		assertEquals(Collections.singletonList("sub1"), actual.get("sess1"));
+	}
+
+	@Test
+	public void pathMatcherChangedAfterSubscribe() {
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub1", "/topic/A"));
+		this.registry.registerSubscription(subscribeMessage("sess1", "sub2", "/topic/*"));
+		MultiValueMap<String, String> actual = this.registry.findSubscriptions(createMessage("/topic/b"));
+		assertEquals(Collections.singletonList("sub2"), actual.get("sess1"));
+
+		AntPathMatcher pathMatcher = new AntPathMatcher();
+		pathMatcher.setCaseSensitive(false);
+		this.registry.setPathMatcher(pathMatcher);
+
+		actual = this.registry.findSubscriptions(createMessage("/topic/a"));
+		assertEquals(Arrays.asList("sub1", "sub2"), sort(actual.get("sess1")));
+	}
+
+
+	private Message<?> subscribeMessage(String sessionId, String subscriptionId, String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> unsubscribeMessage(String sessionId, String subscriptionId) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+		accessor.setSessionId(sessionId);
+		accessor.setSubscriptionId(subscriptionId);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private Message<?> createMessage(String destination) {
+		SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+		accessor.setDestination(destination);
+		return MessageBuilder.createMessage("", accessor.getMessageHeaders());
+	}
+
+	private String getIndexDescription() {
+		String description = this.registry.toString();
+		int start = description.indexOf("index[");
+		return description.substring(start, description.indexOf(']', start) + 1);
+	}
+
+	private static List<String> sort(List<String> list) {
+		List<String> result = new ArrayList<>(list);
+		Collections.sort(result);
+		return result;
+	}
+
+}
@@ -120,6 +120,7 @@ import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.fileupload.FileItem;
 import org.apache.commons.io.input.CountingInputStream;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.tools.ant.DirectoryScanner;
 import org.apache.tools.ant.Project;
@@ -479,12 +480,24 @@ public final class FilePath implements Serializable {
         final OutputStream out = (channel!=null)?new RemoteOutputStream(os):os;
         return act(new SecureFileCallable<Integer>() {
             public Integer invoke(File f, VirtualChannel channel) throws IOException {
-                Archiver a = factory.create(out);
+                long start = System.nanoTime();
+                // archivers write the compressed data in tiny chunks, each of which would otherwise
+                // become a separate command on the remoting channel
+                CountingOutputStream compressed = new CountingOutputStream(new BufferedOutputStream(out, ARCHIVE_BUFFER_SIZE));
+                Archiver a = factory.create(compressed);
+                SizeCountingVisitor visitor = new SizeCountingVisitor(reading(a));
                 try {
-                    scanner.scan(f,reading(a));
+                    scanner.scan(f,visitor);
                 } finally {
                     a.close();
                 }
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    LOGGER.log(Level.FINE, "Archived {0} entries ({1} bytes) of {2} into {3} bytes in {4}ms: {5} bytes/s, compression ratio {6}",
+                            new Object[] {a.countEntries(), visitor.size, f, compressed.getByteCount(), elapsed,
+                                    compressed.getByteCount() * 1000 / elapsed,
+                                    String.format("%.2f", visitor.size / (double) Math.max(1, compressed.getByteCount()))});
+                }
                 return a.countEntries();
             }
 
@@ -500,6 +513,36 @@ public final class FilePath implements Serializable {
         return archive(factory,os,new DirScanner.Glob(glob,null));
     }
 
+    /**
+     * {@link FileVisitor} that sums up the size of the visited files, to report the compression ratio of archives.
+     */
+    private static final class SizeCountingVisitor extends FileVisitor {
+        private final FileVisitor delegate;
+        private long size;
+
+        SizeCountingVisitor(FileVisitor delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void visit(File f, String relativePath) throws IOException {
+            if (f.isFile()) {
+                size += f.length();
+            }
+            delegate.visit(f, relativePath);
+        }
+
+        @Override
+        public void visitSymlink(File link, String target, String relativePath) throws IOException {
+            delegate.visitSymlink(link, target, relativePath);
+        }
+
+        @Override
+        public boolean understandsSymlink() {
+            return delegate.understandsSymlink();
+        }
+    }
+
     /**
      * When this {@link FilePath} represents a zip file, extracts that zip file.
      *
@@ -2803,6 +2846,11 @@ public final class FilePath implements Serializable {
 
     public static int SIDE_BUFFER_SIZE = 1024;
 
+    /**
+     * Size of the buffer used to batch up archive data before it is sent over the remoting channel.
+     */
+    public static int ARCHIVE_BUFFER_SIZE = Integer.getInteger(FilePath.class.getName() + ".archiveBufferSize", 64 * 1024);
+
     private static final Logger LOGGER = Logger.getLogger(FilePath.class.getName());
 
     /**
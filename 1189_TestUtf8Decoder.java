@@ -0,0 +1,131 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.buf;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for the ASCII fast paths of {@link Utf8Decoder}. Input with an array
+ * is decoded in bulk and input without an array, such as a direct buffer, is
+ * tested eight bytes at a time with {@link ByteBuffer#getLong(int)}.
+ */
+public class TestUtf8Decoder {
+
+    private static final String ASCII =
+            "/examples/servlets/servlet/RequestParamExample?firstname=John&lastname=Smith";
+
+    private static final String[] NON_ASCII =
+            new String[] { "\u00f6", "\u4e2d", "\ud83d\ude00" };
+
+
+    @Test
+    public void testMalformedAfterAscii() {
+        byte[] bytes = new byte[] { 'a', 'b', 'c', 'd', 'e', 'f', 'g', 'h', 'i', (byte) 0xC0 };
+        CharBuffer out = CharBuffer.allocate(bytes.length);
+
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        CoderResult result = new Utf8Decoder().decode(in, out, true);
+        assertEquals(CoderResult.malformedForLength(1), result);
+        assertEquals(9, in.position());
+
+        in = toDirect(bytes);
+        out.clear();
+        result = new Utf8Decoder().decode(in, out, true);
+        assertEquals(CoderResult.malformedForLength(1), result);
+        assertEquals(9, in.position());
+    }
+
+
+    @Test
+    public void testOverflow() {
+        byte[] bytes = ASCII.getBytes(StandardCharsets.US_ASCII);
+
+        for (ByteBuffer in : new ByteBuffer[] { ByteBuffer.wrap(bytes), toDirect(bytes) }) {
+            CharBuffer out = CharBuffer.allocate(10);
+            CoderResult result = new Utf8Decoder().decode(in, out, true);
+            assertFalse(result.isUnderflow());
+            assertEquals(10, in.position());
+            out.flip();
+            assertEquals(ASCII.substring(0, 10), out.toString());
+        }
+    }
+
+
+    @Test
+    public void testAsciiBoundary() {
+        // Move each non-ASCII character across the eight byte blocks read
+        // by the fast path, including the last bytes of the input
+        for (String nonAscii : NON_ASCII) {
+            for (int offset = 0; offset <= 17; offset++) {
+                String input = ASCII.substring(0, offset) + nonAscii + ASCII.substring(offset, 20);
+                byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+
+                assertEquals(input, decode(ByteBuffer.wrap(bytes)));
+                assertEquals(input, decode(toDirect(bytes)));
+                assertEquals(input, decode(ByteBuffer.wrap(bytes).asReadOnlyBuffer()));
+
+                input = ASCII.substring(0, offset) + nonAscii;
+                bytes = input.getBytes(StandardCharsets.UTF_8);
+                assertEquals(input, decode(toDirect(bytes)));
+            }
+        }
+    }
+
+
+    @Test
+    public void testAsciiBoundaryOverflow() {
+        // The output buffer ends part way through an eight byte block
+        byte[] bytes = (ASCII.substring(0, 12) + "\u00f6").getBytes(StandardCharsets.UTF_8);
+
+        for (int size = 1; size < 12; size++) {
+            ByteBuffer in = toDirect(bytes);
+            CharBuffer out = CharBuffer.allocate(size);
+            CoderResult result = new Utf8Decoder().decode(in, out, true);
+            assertTrue(result.isOverflow());
+            assertEquals(size, in.position());
+            out.flip();
+            assertEquals(ASCII.substring(0, size), out.toString());
+        }
+    }
+
+
+    private static String decode(ByteBuffer in) {
+        CharBuffer out = CharBuffer.allocate(in.remaining());
+        CoderResult result = new Utf8Decoder().decode(in, out, true);
+        assertTrue(result.isUnderflow());
+        assertEquals(in.limit(), in.position());
+        out.flip();
+        return out.toString();
+    }
+
+
+    private static ByteBuffer toDirect(byte[] bytes) {
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.flip();
+        return direct;
+    }
+}
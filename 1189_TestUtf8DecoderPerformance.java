@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.buf;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Compares {@link Utf8Decoder} with the JDK UTF-8 decoder for heap and direct
+ * buffers using input that is pure ASCII and input that is mostly ASCII.
+ */
+public class TestUtf8DecoderPerformance {
+
+    private static final String ASCII =
+            "/examples/servlets/servlet/RequestParamExample?firstname=John&lastname=Smith";
+    private static final String MIXED =
+            "/examples/servlets/servlet/RequestParamExample?firstname=J\u00f6rg&lastname=\u4e2d\u6587";
+
+    private static final int ITERATIONS = 1000000;
+
+
+    @Test
+    public void testAscii() {
+        doTest(ASCII);
+    }
+
+
+    @Test
+    public void testMixed() {
+        doTest(MIXED);
+    }
+
+
+    private void doTest(String input) {
+        byte[] bytes = input.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer heap = ByteBuffer.wrap(bytes);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes);
+        direct.flip();
+
+        CharsetDecoder tomcat = new Utf8Decoder();
+        CharsetDecoder jdk = StandardCharsets.UTF_8.newDecoder();
+        CharBuffer out = CharBuffer.allocate(bytes.length);
+
+        assertEquals(input, decode(tomcat, heap, out));
+        assertEquals(input, decode(tomcat, direct, out));
+
+        long tomcatHeap = time(tomcat, heap, out);
+        long jdkHeap = time(jdk, heap, out);
+        long tomcatDirect = time(tomcat, direct, out);
+        long jdkDirect = time(jdk, direct, out);
+
+        System.out.println("Heap: Tomcat " + tomcatHeap / 1000000 + "ms, JDK " +
+                jdkHeap / 1000000 + "ms. Direct: Tomcat " + tomcatDirect / 1000000 +
+                "ms, JDK " + jdkDirect / 1000000 + "ms");
+    }
+
+
+    private static String decode(CharsetDecoder decoder, ByteBuffer in, CharBuffer out) {
+        decoder.reset();
+        in.rewind();
+        out.clear();
+        decoder.decode(in, out, true);
+        out.flip();
+        return out.toString();
+    }
+
+
+    private static long time(CharsetDecoder decoder, ByteBuffer in, CharBuffer out) {
+        // Warm up
+        for (int i = 0; i < ITERATIONS / 10; i++) {
+            decode(decoder, in, out);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            decode(decoder, in, out);
+        }
+        return System.nanoTime() - start;
+    }
+}
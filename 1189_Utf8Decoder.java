@@ -65,6 +65,8 @@ public class Utf8Decoder extends CharsetDecoder {
                      // 6)+(1o000000b)
     };
     private static final int lowerEncodingLimit[] = {-1, 0x80, 0x800, 0x10000};
+    // High bit of each of eight bytes
+    private static final long ASCII_MASK = 0x8080808080808080L;
 
 
     public Utf8Decoder() {
@@ -90,6 +92,18 @@ public class Utf8Decoder extends CharsetDecoder {
                 if (outRemaining == 0) {
                     return CoderResult.OVERFLOW;
                 }
+                // ASCII fast path. Test eight bytes at a time for any with the
+                // high bit set. For direct buffers getLong() is a single read.
+                if (outRemaining >= 8 && limit - pos >= 8 &&
+                        (in.getLong(pos) & ASCII_MASK) == 0) {
+                    for (int i = 0; i < 8; i++) {
+                        out.put((char) in.get(pos + i));
+                    }
+                    pos += 8;
+                    outRemaining -= 8;
+                    in.position(pos);
+                    continue;
+                }
                 int jchar = in.get();
                 if (jchar < 0) {
                     jchar = jchar & 0x7F;
@@ -158,7 +172,17 @@ public class Utf8Decoder extends CharsetDecoder {
         // he would face consequences
         for (; inIndex < inIndexLimit && outRemaining > 0; inIndex++) {
             int jchar = bArr[inIndex];
-            if (jchar < 0) {
+            if (jchar >= 0) {
+                // ASCII fast path. Copy the run of ASCII bytes that starts
+                // here in bulk rather than one at a time.
+                int count = decodeAscii(bArr, inIndex,
+                        Math.min(inIndexLimit - inIndex, outRemaining), cArr, outIndex);
+                // The loop increments inIndex once more
+                inIndex += count - 1;
+                outIndex += count;
+                outRemaining -= count;
+                continue;
+            } else {
                 jchar = jchar & 0x7F;
                 // If first byte is invalid, tail will be set to -1
                 int tail = remainingBytes[jchar];
@@ -291,4 +315,38 @@ public class Utf8Decoder extends CharsetDecoder {
                 CoderResult.OVERFLOW :
                 CoderResult.UNDERFLOW;
     }
+
+
+    /**
+     * Copies bytes to chars for as long as the bytes are ASCII.
+     *
+     * @return the number of bytes copied, always at least one if the first
+     *         byte is ASCII and len is greater than zero
+     */
+    private static int decodeAscii(byte[] bArr, int inIndex, int len, char[] cArr,
+            int outIndex) {
+        int i = 0;
+        // Test eight bytes at a time. Sign extension means the result is
+        // negative if any of the bytes has the high bit set. The JIT is able
+        // to unroll and vectorize this loop.
+        for (; i + 8 <= len; i += 8) {
+            int index = inIndex + i;
+            if ((bArr[index] | bArr[index + 1] | bArr[index + 2] | bArr[index + 3] |
+                    bArr[index + 4] | bArr[index + 5] | bArr[index + 6] |
+                    bArr[index + 7]) < 0) {
+                break;
+            }
+            for (int j = 0; j < 8; j++) {
+                cArr[outIndex + i + j] = (char) bArr[index + j];
+            }
+        }
+        for (; i < len; i++) {
+            byte b = bArr[inIndex + i];
+            if (b < 0) {
+                break;
+            }
+            cArr[outIndex + i] = (char) b;
+        }
+        return i;
+    }
 }
@@ -30,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -623,6 +624,21 @@ public class CacheClientProxy implements ClientSession {
     return this._messageDispatcher == null ? 0 : this._messageDispatcher.getQueueSizeStat();
   }
 
+  /**
+   * Returns the number of messages the dispatcher has sent to the client since it was started
+   */
+  public long getMessagesDispatched() {
+    return this._messageDispatcher == null ? 0 : this._messageDispatcher.getMessagesDispatched();
+  }
+
+  /**
+   * Returns the rate, in messages per second, at which the dispatcher recently drained the queue to
+   * the client. Together with {@link #getQueueSize()} this tells whether the client keeps up.
+   */
+  public double getDrainRate() {
+    return this._messageDispatcher == null ? 0 : this._messageDispatcher.getDrainRate();
+  }
+
 
   public boolean drainInProgress() {
     synchronized (drainsInProgressLock) {
@@ -2236,6 +2252,31 @@ public class CacheClientProxy implements ClientSession {
     private final ReadWriteLock socketLock = new ReentrantReadWriteLock();
 
     private final Lock socketWriteLock = socketLock.writeLock();
+
+    /**
+     * The interval over which the drain rate is measured
+     */
+    private static final long DRAIN_RATE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The number of messages sent to the client. Only updated by the dispatcher thread.
+     */
+    private volatile long _messagesDispatched;
+
+    /**
+     * The drain rate in messages per second measured over the last complete interval
+     */
+    private volatile double _drainRate;
+
+    /**
+     * When the last complete drain rate interval ended, in nanoseconds
+     */
+    private volatile long _drainRateTimestamp = System.nanoTime();
+
+    /**
+     * The number of messages sent to the client in the current drain rate interval
+     */
+    private long _drainRateIntervalCount;
     // /**
     // * A boolean verifying whether a warning has already been issued if the
     // * message queue has reached its capacity.
@@ -2419,6 +2460,36 @@ public class CacheClientProxy implements ClientSession {
       return 0;
     }
 
+    /**
+     * Returns the number of messages sent to the client since the dispatcher started
+     */
+    protected long getMessagesDispatched() {
+      return this._messagesDispatched;
+    }
+
+    /**
+     * Returns the drain rate in messages per second, or zero if nothing was sent recently
+     */
+    protected double getDrainRate() {
+      if (System.nanoTime() - this._drainRateTimestamp > 2 * DRAIN_RATE_INTERVAL_NANOS) {
+        return 0;
+      }
+      return this._drainRate;
+    }
+
+    private void recordDispatched() {
+      this._messagesDispatched++;
+      this._drainRateIntervalCount++;
+      long now = System.nanoTime();
+      long elapsed = now - this._drainRateTimestamp;
+      if (elapsed >= DRAIN_RATE_INTERVAL_NANOS) {
+        this._drainRate =
+            this._drainRateIntervalCount * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        this._drainRateIntervalCount = 0;
+        this._drainRateTimestamp = now;
+      }
+    }
+
     protected void drainClientCqEvents(ClientProxyMembershipID clientId,
         InternalCqQuery cqToClose) {
       this._messageQueue.closeClientCq(clientId, cqToClose);
@@ -2779,6 +2850,7 @@ public class CacheClientProxy implements ClientSession {
       }
       if (isDispatched) {
         this._messageQueue.getStatistics().incEventsDispatched();
+        recordDispatched();
       }
       return isDispatched;
     }
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.http.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.tomcat.util.buf.ByteChunk;
+
+public class AcceptLanguage {
+
+    private final Locale locale;
+    private final double quality;
+
+    protected AcceptLanguage(Locale locale, double quality) {
+        this.locale = locale;
+        this.quality = quality;
+    }
+
+    public Locale getLocale() {
+        return locale;
+    }
+
+    public double getQuality() {
+        return quality;
+    }
+
+
+    public static List<AcceptLanguage> parse(StringReader input) throws IOException {
+
+        List<AcceptLanguage> result = new ArrayList<>();
+
+        while (true) {
+            // Token is broader than what is permitted in a language tag
+            // (alphanumeric + '-') but any invalid values that slip through
+            // will be caught later
+            String languageTag = HttpParser.readToken(input);
+            if (languageTag == null) {
+                // Invalid tag, skip to the next one
+                HttpParser.skipUntil(input, 0, ',');
+                continue;
+            }
+
+            if (languageTag.length() == 0) {
+                // No more data to read
+                break;
+            }
+
+            // See if a quality has been provided
+            double quality = 1;
+            SkipResult lookForSemiColon = HttpParser.skipConstant(input, ";");
+            if (lookForSemiColon == SkipResult.FOUND) {
+                quality = HttpParser.readWeight(input, ',');
+            }
+
+            if (quality > 0) {
+                result.add(new AcceptLanguage(Locale.forLanguageTag(languageTag), quality));
+            }
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Parses the header directly from its bytes. The result is the same as for
+     * {@link #parse(StringReader)} but only the language tags that are kept are
+     * converted to Strings.
+     *
+     * @param input The header value. Its start is advanced to the end of the
+     *              value.
+     *
+     * @return the languages with a quality greater than zero, in the order
+     *         they appear in the header
+     */
+    public static List<AcceptLanguage> parse(ByteChunk input) {
+
+        List<AcceptLanguage> result = new ArrayList<>();
+        ByteChunk languageTag = new ByteChunk();
+
+        while (true) {
+            // Token is broader than what is permitted in a language tag
+            // (alphanumeric + '-') but any invalid values that slip through
+            // will be caught later
+            if (!HttpParser.readToken(input, languageTag)) {
+                // Invalid tag, skip to the next one
+                HttpParser.skipUntil(input, ',');
+                continue;
+            }
+
+            if (languageTag.getLength() == 0) {
+                // No more data to read
+                break;
+            }
+
+            // See if a quality has been provided
+            double quality = 1;
+            SkipResult lookForSemiColon = HttpParser.skipConstant(input, ";");
+            if (lookForSemiColon == SkipResult.FOUND) {
+                quality = HttpParser.readWeight(input, ',');
+            }
+
+            if (quality > 0) {
+                result.add(new AcceptLanguage(Locale.forLanguageTag(languageTag.toString()), quality));
+            }
+        }
+
+        return result;
+    }
+}
@@ -19,6 +19,8 @@ package org.apache.tomcat.util.http.parser;
 import java.io.IOException;
 import java.io.StringReader;
 
+import org.apache.tomcat.util.buf.ByteChunk;
+
 /**
  * HTTP header value parser implementation. Parsing HTTP headers as per RFC2616
  * is not always as simple as it first appears. For headers that only use tokens
@@ -41,6 +43,17 @@ public class HttpParser {
     private static final boolean[] IS_TOKEN = new boolean[ARRAY_SIZE];
     private static final boolean[] IS_HEX = new boolean[ARRAY_SIZE];
 
+    // Classification of all 256 byte values for the ByteChunk based methods.
+    // Bytes are masked with 0xFF before the lookup so no bounds checks are
+    // required.
+    private static final int BYTE_TYPE_SIZE = 256;
+    private static final byte TYPE_TOKEN = 0x01;
+    private static final byte TYPE_HEX = 0x02;
+    private static final byte TYPE_LWS = 0x04;
+    private static final byte[] BYTE_TYPE = new byte[BYTE_TYPE_SIZE];
+
+    private static final int[] POWERS_OF_TEN = new int[] { 1, 10, 100, 1000 };
+
     static {
         for (int i = 0; i < ARRAY_SIZE; i++) {
             // Control> 0-31, 127
@@ -66,6 +79,20 @@ public class HttpParser {
                 IS_HEX[i] = true;
             }
         }
+
+        for (int i = 0; i < ARRAY_SIZE; i++) {
+            byte type = 0;
+            if (IS_TOKEN[i]) {
+                type |= TYPE_TOKEN;
+            }
+            if (IS_HEX[i]) {
+                type |= TYPE_HEX;
+            }
+            if (i == 32 || i == 9 || i == 10 || i == 13) {
+                type |= TYPE_LWS;
+            }
+            BYTE_TYPE[i] = type;
+        }
     }
 
 
@@ -209,7 +236,7 @@ public class HttpParser {
                 if (returnQuoted) {
                     result.append('\\');
                 }
-                result.append(c);
+                result.append((char) c);
             } else {
                 result.append((char) c);
             }
@@ -418,4 +445,268 @@ public class HttpParser {
             return SkipResult.FOUND;
         }
     }
+
+
+    /*
+     * ByteChunk based equivalents of the StringReader based methods above.
+     *
+     * These operate directly on the bytes backing the header value. The input
+     * ByteChunk is consumed in the same way as the StringReader: its start is
+     * advanced past whatever has been read. Results are returned as views onto
+     * the original buffer via the supplied ByteChunk so nothing is copied and
+     * no Strings are created. Callers that need a String can call toString()
+     * on the view; callers that only need to compare can use the equals*()
+     * methods of ByteChunk.
+     *
+     * The methods return the same results as their StringReader equivalents.
+     * The only difference is that a byte which is looked at but not used is
+     * always left in the input, whereas StringReader.skip() cannot step back
+     * once the end of the String has been reached.
+     */
+
+    /**
+     * Skip any LWS.
+     *
+     * @param input The header value to read from
+     *
+     * @return the next byte (which is not consumed) or -1 if the end of the
+     *         input has been reached
+     */
+    static int skipLws(ByteChunk input) {
+        byte[] bytes = input.getBuffer();
+        int pos = input.getStart();
+        int end = input.getEnd();
+
+        while (pos < end && (BYTE_TYPE[bytes[pos] & 0xFF] & TYPE_LWS) != 0) {
+            pos++;
+        }
+        input.setOffset(pos);
+
+        if (pos == end) {
+            return -1;
+        }
+        return bytes[pos] & 0xFF;
+    }
+
+    static SkipResult skipConstant(ByteChunk input, String constant) {
+        int c = skipLws(input);
+        if (c == -1) {
+            return SkipResult.EOF;
+        }
+
+        byte[] bytes = input.getBuffer();
+        int pos = input.getStart();
+        int len = constant.length();
+
+        if (input.getEnd() - pos < len) {
+            return SkipResult.NOT_FOUND;
+        }
+        for (int i = 0; i < len; i++) {
+            if ((bytes[pos + i] & 0xFF) != constant.charAt(i)) {
+                return SkipResult.NOT_FOUND;
+            }
+        }
+        input.setOffset(pos + len);
+        return SkipResult.FOUND;
+    }
+
+    /**
+     * @param input The header value to read from
+     * @param token Set to a view of the token that was read. This will be
+     *              empty if no data was available to read.
+     *
+     * @return <code>true</code> if a token was found or no data was available
+     *         to read, <code>false</code> if data other than a token was found
+     */
+    static boolean readToken(ByteChunk input, ByteChunk token) {
+        skipLws(input);
+
+        byte[] bytes = input.getBuffer();
+        int start = input.getStart();
+        int end = input.getEnd();
+        int pos = start;
+
+        while (pos < end && (BYTE_TYPE[bytes[pos] & 0xFF] & TYPE_TOKEN) != 0) {
+            pos++;
+        }
+        input.setOffset(pos);
+        token.setBytes(bytes, start, pos - start);
+
+        return pos > start || pos == end;
+    }
+
+    /**
+     * Reads a quoted string. The view is of the bytes between the quotes and
+     * is not unescaped. Any quoted-pairs it contains are left as is and may be
+     * removed by calling {@link #unquote(String)} on the String form of the
+     * view.
+     *
+     * @param input The header value to read from
+     * @param value Set to a view of the content of the quoted string
+     *
+     * @return <code>true</code> if a quoted string was found,
+     *         <code>false</code> if data other than a quoted string was found
+     *         or the end of data was reached before the quoted string was
+     *         terminated
+     */
+    static boolean readQuotedString(ByteChunk input, ByteChunk value) {
+        int c = skipLws(input);
+
+        if (c != '"') {
+            return false;
+        }
+
+        byte[] bytes = input.getBuffer();
+        int start = input.getStart() + 1;
+        int end = input.getEnd();
+        int pos = start;
+
+        while (pos < end) {
+            c = bytes[pos];
+            if (c == '"') {
+                value.setBytes(bytes, start, pos - start);
+                input.setOffset(pos + 1);
+                return true;
+            } else if (c == '\\') {
+                pos++;
+            }
+            pos++;
+        }
+        return false;
+    }
+
+    /**
+     * Reads a q value. The parsing rules and the handling of malformed values,
+     * including which bytes are consumed, are the same as for
+     * {@link #readWeight(StringReader, char)} but the value is calculated
+     * directly from the digits rather than via
+     * {@link Double#parseDouble(String)}.
+     *
+     * @param input     The header value to read from
+     * @param delimiter The delimiter that terminates the value
+     *
+     * @return the q value, or zero if it was malformed
+     */
+    static double readWeight(ByteChunk input, char delimiter) {
+        int c = readLws(input);
+        if (c == -1 || c == delimiter) {
+            // No q value just whitespace
+            return 1;
+        } else if (c != 'q') {
+            // Malformed. Use quality of zero so it is dropped.
+            skipUntil(input, c, delimiter);
+            return 0;
+        }
+        // RFC 7231 does not allow whitespace here but be tolerant
+        c = readLws(input);
+        if (c != '=') {
+            // Malformed. Use quality of zero so it is dropped.
+            skipUntil(input, c, delimiter);
+            return 0;
+        }
+
+        // RFC 7231 does not allow whitespace here but be tolerant
+        c = readLws(input);
+
+        // The digits read so far as an integer and the number of them that
+        // follow the decimal point. Should be no more than 3 decimal places.
+        int value;
+        int decimals = 0;
+        boolean fraction = false;
+        int decimalPlacesRead = 0;
+        if (c == '0' || c == '1') {
+            value = c - '0';
+            c = read(input);
+            if (c == '.') {
+                fraction = true;
+            } else if (c < '0' || c > '9') {
+                decimalPlacesRead = 3;
+            }
+            while (true) {
+                c = read(input);
+                if (c >= '0' && c <= '9') {
+                    if (decimalPlacesRead < 3) {
+                        value = value * 10 + (c - '0');
+                        if (fraction) {
+                            decimals++;
+                        }
+                        decimalPlacesRead++;
+                    }
+                } else if (c == delimiter || c == 9 || c == 32 || c == -1) {
+                    break;
+                } else {
+                    // Malformed. Use quality of zero so it is dropped and skip until
+                    // EOF or the next delimiter
+                    skipUntil(input, c, delimiter);
+                    return 0;
+                }
+            }
+        } else {
+            // Malformed. Use quality of zero so it is dropped and skip until
+            // EOF or the next delimiter
+            skipUntil(input, c, delimiter);
+            return 0;
+        }
+
+        int scale = POWERS_OF_TEN[decimals];
+        if (value > scale) {
+            return 0;
+        }
+        return (double) value / scale;
+    }
+
+    /**
+     * Skips all bytes until the end of the input or the specified target is
+     * found. The target, if found, is consumed.
+     */
+    static SkipResult skipUntil(ByteChunk input, char target) {
+        byte[] bytes = input.getBuffer();
+        int pos = input.getStart();
+        int end = input.getEnd();
+
+        while (pos < end && bytes[pos] != target) {
+            pos++;
+        }
+        if (pos == end) {
+            input.setOffset(end);
+            return SkipResult.EOF;
+        } else {
+            input.setOffset(pos + 1);
+            return SkipResult.FOUND;
+        }
+    }
+
+    /*
+     * Equivalent of skipUntil(StringReader, int, char) where c is the byte
+     * that has just been consumed.
+     */
+    private static SkipResult skipUntil(ByteChunk input, int c, char target) {
+        if (c == -1) {
+            return SkipResult.EOF;
+        } else if (c == target) {
+            return SkipResult.FOUND;
+        }
+        return skipUntil(input, target);
+    }
+
+    /*
+     * Consume and return the next byte, or -1 at the end of the input.
+     */
+    private static int read(ByteChunk input) {
+        int pos = input.getStart();
+        if (pos == input.getEnd()) {
+            return -1;
+        }
+        input.setOffset(pos + 1);
+        return input.getBuffer()[pos] & 0xFF;
+    }
+
+    /*
+     * Equivalent of skipLws(StringReader, false): skip any LWS then consume
+     * and return the next byte.
+     */
+    private static int readLws(ByteChunk input) {
+        skipLws(input);
+        return read(input);
+    }
 }
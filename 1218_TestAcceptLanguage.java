@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.http.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import org.apache.tomcat.util.buf.ByteChunk;
+
+public class TestAcceptLanguage {
+
+    private static final String[] HEADERS = new String[] {
+        "", "en", "en-US,en;q=0.8,de;q=0.6,fr;q=0.4", " en-GB ; q=0.5 , fr ",
+        "en;q=0,fr", "en;x=1,fr", "\"en\",fr", "en;q=15,fr;q=0.9", "en;q=1,fr",
+        "en;q=0.5x,fr", ",,en", "en;", "en;q=", "*;q=0.1", "de-CH;q=0.999"
+    };
+
+
+    @Test
+    public void testParse() {
+        List<AcceptLanguage> result = AcceptLanguage.parse(chunk("en-US,de;q=0.5,fr;q=0"));
+
+        assertEquals(2, result.size());
+        assertEquals(Locale.US, result.get(0).getLocale());
+        assertEquals(1, result.get(0).getQuality(), 0);
+        assertEquals(Locale.GERMAN, result.get(1).getLocale());
+        assertEquals(0.5, result.get(1).getQuality(), 0);
+    }
+
+
+    @Test
+    public void testParseEquivalence() throws IOException {
+        for (String header : HEADERS) {
+            List<AcceptLanguage> expected = AcceptLanguage.parse(new StringReader(header));
+            List<AcceptLanguage> actual = AcceptLanguage.parse(chunk(header));
+
+            assertEquals(header, expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(header, expected.get(i).getLocale(), actual.get(i).getLocale());
+                assertEquals(header, expected.get(i).getQuality(), actual.get(i).getQuality(), 0);
+            }
+        }
+    }
+
+
+    private static ByteChunk chunk(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        ByteChunk result = new ByteChunk();
+        result.setBytes(bytes, 0, bytes.length);
+        return result;
+    }
+}
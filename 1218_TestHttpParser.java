@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.http.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import org.apache.tomcat.util.buf.ByteChunk;
+
+/**
+ * Checks that the ByteChunk based parsing methods of {@link HttpParser} return
+ * the same results as the StringReader based ones.
+ */
+public class TestHttpParser {
+
+    private static final String[] TOKENS = new String[] {
+        "", " ", "gzip", "  gzip , deflate", "gzip;q=0.5", "\"quoted\"", ",",
+        "en-US", "a\u00e9b", " \t x"
+    };
+
+    private static final String[] QUOTED_STRINGS = new String[] {
+        "", "token", "\"\"", " \"a\\\"b\";x", "\"unterminated", "\"escape at end\\",
+        "\"a\\\\\" , b", " \t\"x\""
+    };
+
+    private static final String[] CONSTANTS = new String[] {
+        "", "  ", ";", " ; q=1", "x;", ",", "\t,x"
+    };
+
+    private static final String[] WEIGHTS = new String[] {
+        "", " ", ",", " ,fr", "q=0.8,", "q=1", " q = 0.125,", "q=0.1234", "q=2",
+        "x=1,", "q=0.5x,", "q=1.000", "q=1.001", "q=15", "q=155", "q=0123",
+        "q=1x", "q=1,en", "q=1 ", "q=0.", "q=1.", "q", "q,", "q=", "q=,fr",
+        "q=.5", "q=0.5 ;x", "q=0.5\t", "Q=0.5", "q=0.12,3", "q=1.0,fr;q=0.5"
+    };
+
+
+    @Test
+    public void testReadToken() throws IOException {
+        ByteChunk input = chunk("  gzip , deflate");
+        ByteChunk token = new ByteChunk();
+
+        assertTrue(HttpParser.readToken(input, token));
+        assertEquals("gzip", token.toString());
+        assertEquals(SkipResult.FOUND, HttpParser.skipConstant(input, ","));
+        assertTrue(HttpParser.readToken(input, token));
+        assertTrue(token.equals("deflate"));
+        assertTrue(HttpParser.readToken(input, token));
+        assertEquals(0, token.getLength());
+
+        assertFalse(HttpParser.readToken(chunk("\"quoted\""), token));
+    }
+
+
+    @Test
+    public void testReadTokenEquivalence() throws IOException {
+        ByteChunk token = new ByteChunk();
+        for (String value : TOKENS) {
+            String expected = HttpParser.readToken(new StringReader(value));
+            boolean found = HttpParser.readToken(chunk(value), token);
+            if (expected == null) {
+                assertFalse(value, found);
+            } else {
+                assertTrue(value, found);
+                assertEquals(value, expected, token.toString());
+            }
+        }
+    }
+
+
+    @Test
+    public void testReadQuotedString() {
+        ByteChunk input = chunk(" \"a\\\"b\";x");
+        ByteChunk value = new ByteChunk();
+
+        assertTrue(HttpParser.readQuotedString(input, value));
+        assertEquals("a\\\"b", value.toString());
+        assertEquals(SkipResult.FOUND, HttpParser.skipConstant(input, ";"));
+
+        assertFalse(HttpParser.readQuotedString(chunk("\"unterminated"), value));
+        assertFalse(HttpParser.readQuotedString(chunk("token"), value));
+    }
+
+
+    @Test
+    public void testReadQuotedStringEquivalence() throws IOException {
+        ByteChunk quoted = new ByteChunk();
+        for (String value : QUOTED_STRINGS) {
+            // The view is not unescaped so compare with the quoted form
+            String expected = HttpParser.readQuotedString(new StringReader(value), true);
+            boolean found = HttpParser.readQuotedString(chunk(value), quoted);
+            if (expected == null) {
+                assertFalse(value, found);
+            } else {
+                assertTrue(value, found);
+                assertEquals(value, expected, "\"" + quoted.toString() + "\"");
+            }
+        }
+    }
+
+
+    @Test
+    public void testSkipConstantEquivalence() throws IOException {
+        for (String value : CONSTANTS) {
+            assertEquals(value, HttpParser.skipConstant(new StringReader(value), ";"),
+                    HttpParser.skipConstant(chunk(value), ";"));
+        }
+    }
+
+
+    @Test
+    public void testReadWeightEquivalence() throws IOException {
+        for (String weight : WEIGHTS) {
+            StringReader reader = new StringReader(weight);
+            ByteChunk input = chunk(weight);
+
+            double expected = HttpParser.readWeight(reader, ',');
+            double actual = HttpParser.readWeight(input, ',');
+            assertEquals(weight, expected, actual, 0);
+
+            // Both must have consumed the same input
+            ByteChunk next = new ByteChunk();
+            String expectedNext = HttpParser.readToken(reader);
+            if (expectedNext == null) {
+                assertFalse(weight, HttpParser.readToken(input, next));
+            } else {
+                assertTrue(weight, HttpParser.readToken(input, next));
+                assertEquals(weight, expectedNext, next.toString());
+            }
+        }
+    }
+
+
+    @Test
+    public void testReadWeight() {
+        assertEquals(1, HttpParser.readWeight(chunk("q=15"), ','), 0);
+        assertEquals(0, HttpParser.readWeight(chunk("q=1.5"), ','), 0);
+        assertEquals(0.125, HttpParser.readWeight(chunk("q=0.1259"), ','), 0);
+        assertEquals(0, HttpParser.readWeight(chunk("q=0.5x,"), ','), 0);
+
+        ByteChunk input = chunk(" ,fr");
+        assertEquals(1, HttpParser.readWeight(input, ','), 0);
+        assertEquals("fr", input.toString());
+    }
+
+
+    @Test
+    public void testReadWeightNotAtStart() {
+        ByteChunk input = chunk("de;q=0.7");
+        input.setOffset(3);
+        assertEquals(0.7, HttpParser.readWeight(input, ','), 0);
+        assertEquals(SkipResult.EOF, HttpParser.skipUntil(input, ','));
+    }
+
+
+    @Test
+    public void testSkipUntil() {
+        ByteChunk input = chunk("x y,z");
+        assertEquals(SkipResult.FOUND, HttpParser.skipUntil(input, ','));
+        assertEquals("z", input.toString());
+        assertEquals(SkipResult.EOF, HttpParser.skipUntil(input, ','));
+        assertEquals(0, input.getLength());
+    }
+
+
+    private static ByteChunk chunk(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        ByteChunk result = new ByteChunk();
+        result.setBytes(bytes, 0, bytes.length);
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.tomcat.util.http.parser;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import org.apache.tomcat.util.buf.ByteChunk;
+
+/**
+ * Compares the speed of the StringReader and the ByteChunk based parsing
+ * methods of {@link HttpParser} using a realistic set of Accept,
+ * Accept-Language, Content-Type and Authorization header values. The results
+ * of the two are checked by {@link TestHttpParser}.
+ */
+public class TestHttpParserPerformance {
+
+    private static final String[] HEADERS = new String[] {
+        "text/html,application/xhtml+xml,application/xml;q=0.9,*/*;q=0.8",
+        "en-US,en;q=0.8,de;q=0.6,fr;q=0.4",
+        "application/json; charset=\"UTF-8\"",
+        "Digest username=\"Mufasa\", realm=\"testrealm@host.com\", " +
+                "nonce=\"dcd98b7102dd2f0e8b11d0f600bfb0c093\", uri=\"/dir/index.html\", " +
+                "qop=auth, nc=00000001, cnonce=\"0a4f113b\"",
+        "gzip, deflate, br"
+    };
+
+    private static final int ITERATIONS = 1000000;
+
+
+    @Test
+    public void testPerformance() throws IOException {
+        byte[][] bytes = new byte[HEADERS.length][];
+        for (int i = 0; i < HEADERS.length; i++) {
+            bytes[i] = HEADERS[i].getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        // Warm up
+        int stringCount = parseStrings();
+        int bytesCount = parseBytes(bytes);
+        assertEquals(stringCount, bytesCount);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parseStrings();
+        }
+        long stringTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parseBytes(bytes);
+        }
+        long bytesTime = System.nanoTime() - start;
+
+        System.out.println("StringReader: " + stringTime / 1000000 + "ms, ByteChunk: " +
+                bytesTime / 1000000 + "ms");
+    }
+
+
+    private static int parseStrings() throws IOException {
+        int count = 0;
+        for (String header : HEADERS) {
+            StringReader input = new StringReader(header);
+            while (true) {
+                String value = HttpParser.readTokenOrQuotedString(input, false);
+                if (value != null && value.length() > 0) {
+                    count++;
+                }
+                if (HttpParser.skipUntil(input, 0, ',') == SkipResult.EOF) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+
+    private static int parseBytes(byte[][] headers) {
+        int count = 0;
+        ByteChunk input = new ByteChunk();
+        ByteChunk value = new ByteChunk();
+        for (byte[] header : headers) {
+            input.setBytes(header, 0, header.length);
+            while (true) {
+                boolean found;
+                if (HttpParser.skipLws(input) == '"') {
+                    found = HttpParser.readQuotedString(input, value);
+                } else {
+                    found = HttpParser.readToken(input, value);
+                }
+                if (found && value.getLength() > 0) {
+                    count++;
+                }
+                if (HttpParser.skipUntil(input, ',') == SkipResult.EOF) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+}
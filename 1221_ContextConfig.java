@@ -19,8 +19,10 @@ package org.apache.catalina.startup;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -37,7 +39,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ServletContainerInitializer;
@@ -235,9 +242,80 @@ public class ContextConfig implements LifecycleListener {
      */
     protected boolean handlesTypesNonAnnotations = false;
 
+    /**
+     * The maximum number of threads used to scan the JARs of the web
+     * application for annotations.
+     */
+    protected int annotationScanThreads = 1;
+
+    /**
+     * Should the classes with web annotations found in each JAR be recorded in
+     * the work directory so that unchanged JARs need not be scanned in full
+     * when the web application is started again?
+     */
+    protected boolean annotationScanCache = false;
+
+    /**
+     * The annotation scan cache in use during the current scan, if any.
+     */
+    private AnnotationScanCache currentAnnotationScanCache = null;
+
+    /**
+     * When the JARs are scanned in parallel, collects the classes found by the
+     * current thread that still need to be checked for {@link HandlesTypes}
+     * matches. Those checks share the class cache so they are made on the
+     * thread starting the web application once the JARs have been scanned.
+     */
+    private final ThreadLocal<List<JavaClass>> deferredHandlesTypesChecks =
+            new ThreadLocal<>();
+
 
     // ------------------------------------------------------------- Properties
 
+    /**
+     * @return the maximum number of threads used to scan the JARs of the web
+     *         application for annotations
+     */
+    public int getAnnotationScanThreads() {
+        return annotationScanThreads;
+    }
+
+
+    /**
+     * Set the maximum number of threads used to scan the JARs of the web
+     * application for annotations. The default of 1 scans the JARs one after
+     * the other on the thread starting the web application.
+     *
+     * @param annotationScanThreads The maximum number of threads
+     */
+    public void setAnnotationScanThreads(int annotationScanThreads) {
+        this.annotationScanThreads = annotationScanThreads;
+    }
+
+
+    /**
+     * @return <code>true</code> if the results of the annotation scan of JARs
+     *         are cached in the work directory of the web application
+     */
+    public boolean getAnnotationScanCache() {
+        return annotationScanCache;
+    }
+
+
+    /**
+     * Enable caching of the results of the annotation scan of JARs in the work
+     * directory of the web application. JARs are identified by their path,
+     * size and last modified time. The cache is only used when no
+     * {@link ServletContainerInitializer} has expressed interest in any types,
+     * as every class has to be checked for those.
+     *
+     * @param annotationScanCache <code>true</code> to enable the cache
+     */
+    public void setAnnotationScanCache(boolean annotationScanCache) {
+        this.annotationScanCache = annotationScanCache;
+    }
+
+
     /**
      * Obtain the location of the default deployment descriptor.
      *
@@ -1945,26 +2023,110 @@ public class ContextConfig implements LifecycleListener {
 
     protected void processAnnotations(Set<WebXml> fragments,
             boolean handlesTypesOnly, Map<String,JavaClassCacheEntry> javaClassCache) {
-        for(WebXml fragment : fragments) {
-            // Only need to scan for @HandlesTypes matches if any of the
-            // following are true:
-            // - it has already been determined only @HandlesTypes is required
-            //   (e.g. main web.xml has metadata-complete="true"
-            // - this fragment is for a container JAR (Servlet 3.1 section 8.1)
-            // - this fragment has metadata-complete="true"
-            boolean htOnly = handlesTypesOnly || !fragment.getWebappJar() ||
-                    fragment.isMetadataComplete();
-
-            WebXml annotations = new WebXml();
-            // no impact on distributable
-            annotations.setDistributable(true);
-            URL url = fragment.getURL();
+
+        if (annotationScanCache && context instanceof StandardContext) {
+            String workDir = ((StandardContext) context).getWorkPath();
+            if (workDir != null) {
+                currentAnnotationScanCache = new AnnotationScanCache(
+                        new File(workDir, AnnotationScanCache.FILE_NAME));
+            }
+        }
+
+        try {
+            if (annotationScanThreads > 1 && fragments.size() > 1) {
+                processAnnotationsInParallel(fragments, handlesTypesOnly, javaClassCache);
+            } else {
+                for (WebXml fragment : fragments) {
+                    processAnnotationsFragment(fragment, handlesTypesOnly, javaClassCache);
+                }
+            }
+        } finally {
+            if (currentAnnotationScanCache != null) {
+                currentAnnotationScanCache.save();
+                currentAnnotationScanCache = null;
+            }
+        }
+    }
+
+    private void processAnnotationsInParallel(Set<WebXml> fragments,
+            final boolean handlesTypesOnly,
+            final Map<String,JavaClassCacheEntry> javaClassCache) {
+
+        ForkJoinPool pool = new ForkJoinPool(
+                Math.min(annotationScanThreads, fragments.size()));
+        try {
+            List<Future<List<JavaClass>>> futures = new ArrayList<>(fragments.size());
+            for (final WebXml fragment : fragments) {
+                // Each task only modifies its own fragment and returns the
+                // classes to check for @HandlesTypes matches
+                futures.add(pool.submit(new Callable<List<JavaClass>>() {
+                    @Override
+                    public List<JavaClass> call() {
+                        List<JavaClass> classes = new ArrayList<>();
+                        deferredHandlesTypesChecks.set(classes);
+                        try {
+                            processAnnotationsFragment(fragment, handlesTypesOnly, javaClassCache);
+                        } finally {
+                            deferredHandlesTypesChecks.remove();
+                        }
+                        return classes;
+                    }
+                }));
+            }
+            // Check the classes in the same order as a sequential scan would,
+            // on this thread only, as the class cache is populated as the class
+            // hierarchies are walked
+            for (Future<List<JavaClass>> future : futures) {
+                List<JavaClass> classes;
+                try {
+                    classes = future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof RuntimeException) {
+                        throw (RuntimeException) cause;
+                    }
+                    if (cause instanceof Error) {
+                        throw (Error) cause;
+                    }
+                    throw new IllegalStateException(cause);
+                }
+                for (JavaClass clazz : classes) {
+                    checkHandlesTypes(clazz, javaClassCache);
+                }
+                classes.clear();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private void processAnnotationsFragment(WebXml fragment,
+            boolean handlesTypesOnly, Map<String,JavaClassCacheEntry> javaClassCache) {
+        // Only need to scan for @HandlesTypes matches if any of the
+        // following are true:
+        // - it has already been determined only @HandlesTypes is required
+        //   (e.g. main web.xml has metadata-complete="true"
+        // - this fragment is for a container JAR (Servlet 3.1 section 8.1)
+        // - this fragment has metadata-complete="true"
+        boolean htOnly = handlesTypesOnly || !fragment.getWebappJar() ||
+                fragment.isMetadataComplete();
+
+        WebXml annotations = new WebXml();
+        // no impact on distributable
+        annotations.setDistributable(true);
+        URL url = fragment.getURL();
+        // Nothing to look for if only @HandlesTypes matches are required
+        // and there are no @HandlesTypes
+        if (!htOnly || typeInitializerMap.size() > 0) {
             processAnnotationsUrl(url, annotations, htOnly, javaClassCache);
-            Set<WebXml> set = new HashSet<>();
-            set.add(annotations);
-            // Merge annotations into fragment - fragment takes priority
-            fragment.merge(set);
         }
+        Set<WebXml> set = new HashSet<>();
+        set.add(annotations);
+        // Merge annotations into fragment - fragment takes priority
+        fragment.merge(set);
     }
 
     protected void processAnnotationsWebResource(WebResource webResource,
@@ -2025,6 +2187,28 @@ public class ContextConfig implements LifecycleListener {
     protected void processAnnotationsJar(URL url, WebXml fragment,
             boolean handlesTypesOnly, Map<String,JavaClassCacheEntry> javaClassCache) {
 
+        // The cache only records the classes with web annotations so it can't
+        // be used if every class has to be checked for @HandlesTypes matches
+        AnnotationScanCache scanCache = currentAnnotationScanCache;
+        String cacheKey = null;
+        Set<String> annotatedEntries = null;
+        Set<String> foundEntries = null;
+        if (scanCache != null && !handlesTypesOnly && typeInitializerMap.size() == 0) {
+            cacheKey = scanCache.getKey(url);
+            if (cacheKey != null) {
+                annotatedEntries = scanCache.get(cacheKey);
+                if (annotatedEntries == null) {
+                    foundEntries = new HashSet<>();
+                } else if (annotatedEntries.isEmpty()) {
+                    if (log.isDebugEnabled()) {
+                        log.debug(sm.getString(
+                                "contextConfig.processAnnotationsJar.cached", url));
+                    }
+                    return;
+                }
+            }
+        }
+
         try (Jar jar = JarFactory.newInstance(url)) {
             if (log.isDebugEnabled()) {
                 log.debug(sm.getString(
@@ -2034,13 +2218,20 @@ public class ContextConfig implements LifecycleListener {
             jar.nextEntry();
             String entryName = jar.getEntryName();
             while (entryName != null) {
-                if (entryName.endsWith(".class")) {
+                if (entryName.endsWith(".class") &&
+                        (annotatedEntries == null || annotatedEntries.contains(entryName))) {
                     try (InputStream is = jar.getEntryInputStream()) {
-                        processAnnotationsStream(is, fragment, handlesTypesOnly, javaClassCache);
+                        if (processAnnotationsStream(
+                                is, fragment, handlesTypesOnly, javaClassCache) &&
+                                foundEntries != null) {
+                            foundEntries.add(entryName);
+                        }
                     } catch (IOException e) {
+                        foundEntries = null;
                         log.error(sm.getString("contextConfig.inputStreamJar",
                                 entryName, url),e);
                     } catch (ClassFormatException e) {
+                        foundEntries = null;
                         log.error(sm.getString("contextConfig.inputStreamJar",
                                 entryName, url),e);
                     }
@@ -2048,6 +2239,9 @@ public class ContextConfig implements LifecycleListener {
                 jar.nextEntry();
                 entryName = jar.getEntryName();
             }
+            if (foundEntries != null) {
+                scanCache.put(cacheKey, foundEntries);
+            }
         } catch (IOException e) {
             log.error(sm.getString("contextConfig.jarFile", url), e);
         }
@@ -2084,18 +2278,38 @@ public class ContextConfig implements LifecycleListener {
     }
 
 
-    protected void processAnnotationsStream(InputStream is, WebXml fragment,
+    /**
+     * Process the annotations of a class file.
+     *
+     * @param is The class file
+     * @param fragment The fragment to add the annotated servlets, filters and
+     *                 listeners to
+     * @param handlesTypesOnly Only check the class for {@link HandlesTypes}
+     *                         matches
+     * @param javaClassCache A class cache
+     * @return <code>true</code> if the class has a web annotation that was
+     *         added to the fragment
+     * @throws ClassFormatException If the class file is invalid
+     * @throws IOException If the class file cannot be read
+     */
+    protected boolean processAnnotationsStream(InputStream is, WebXml fragment,
             boolean handlesTypesOnly, Map<String,JavaClassCacheEntry> javaClassCache)
             throws ClassFormatException, IOException {
 
         ClassParser parser = new ClassParser(is);
         JavaClass clazz = parser.parse();
-        checkHandlesTypes(clazz, javaClassCache);
+        List<JavaClass> deferred = deferredHandlesTypesChecks.get();
+        if (deferred == null) {
+            checkHandlesTypes(clazz, javaClassCache);
+        } else if (typeInitializerMap.size() > 0) {
+            deferred.add(clazz);
+        }
 
         if (handlesTypesOnly) {
-            return;
+            return false;
         }
 
+        boolean found = false;
         AnnotationEntry[] annotationsEntries = clazz.getAnnotationEntries();
         if (annotationsEntries != null) {
             String className = clazz.getClassName();
@@ -2103,15 +2317,19 @@ public class ContextConfig implements LifecycleListener {
                 String type = ae.getAnnotationType();
                 if ("Ljavax/servlet/annotation/WebServlet;".equals(type)) {
                     processAnnotationWebServlet(className, ae, fragment);
+                    found = true;
                 }else if ("Ljavax/servlet/annotation/WebFilter;".equals(type)) {
                     processAnnotationWebFilter(className, ae, fragment);
+                    found = true;
                 }else if ("Ljavax/servlet/annotation/WebListener;".equals(type)) {
                     fragment.addListener(className);
+                    found = true;
                 } else {
                     // Unknown annotation - ignore
                 }
             }
         }
+        return found;
     }
 
     /**
@@ -2650,6 +2868,124 @@ public class ContextConfig implements LifecycleListener {
         }
     }
 
+    /**
+     * Records, for each JAR identified by its path, size and last modified
+     * time, the class files with web annotations. Stored as a properties file
+     * in the work directory of the web application.
+     */
+    static class AnnotationScanCache {
+
+        static final String FILE_NAME = "annotationScanCache.properties";
+
+        private final File file;
+        private final Properties loaded = new Properties();
+        private final Map<String,String> used = new ConcurrentHashMap<>();
+
+        public AnnotationScanCache(File file) {
+            this.file = file;
+            if (file.isFile()) {
+                try (InputStream is = new FileInputStream(file)) {
+                    loaded.load(is);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn(sm.getString("contextConfig.annotationScanCache.loadFail", file), e);
+                    loaded.clear();
+                }
+            }
+        }
+
+        /**
+         * The JAR is only read, to compute a checksum of its content, if the
+         * file system does not provide its last modified time. A JAR replaced
+         * by one of the same size with its last modified time preserved is not
+         * detected.
+         *
+         * @param url The URL of the JAR
+         * @return the key for the JAR or <code>null</code> if it is not a JAR
+         *         file in the file system
+         */
+        public String getKey(URL url) {
+            String spec = url.toString();
+            if (spec.startsWith("jar:") && spec.endsWith("!/")) {
+                spec = spec.substring(4, spec.length() - 2);
+            }
+            if (!spec.startsWith("file:") || spec.contains("!/")) {
+                return null;
+            }
+            try {
+                File jarFile = new File(new URL(spec).toURI());
+                String version;
+                long lastModified = jarFile.lastModified();
+                if (lastModified > 0) {
+                    version = Long.toHexString(lastModified);
+                } else {
+                    CRC32 crc = new CRC32();
+                    byte[] buf = new byte[8192];
+                    try (InputStream is = new FileInputStream(jarFile)) {
+                        int n;
+                        while ((n = is.read(buf)) > 0) {
+                            crc.update(buf, 0, n);
+                        }
+                    }
+                    version = "crc" + Long.toHexString(crc.getValue());
+                }
+                return jarFile.getAbsolutePath() + '|' + jarFile.length() + '|' + version;
+            } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+                return null;
+            }
+        }
+
+        /**
+         * @param key The key of the JAR
+         * @return the names of the class files with web annotations or
+         *         <code>null</code> if the JAR is not in the cache
+         */
+        public Set<String> get(String key) {
+            String value = loaded.getProperty(key);
+            if (value == null) {
+                return null;
+            }
+            used.put(key, value);
+            Set<String> result = new HashSet<>();
+            for (String entryName : value.split(",")) {
+                if (entryName.length() > 0) {
+                    result.add(entryName);
+                }
+            }
+            return result;
+        }
+
+        public void put(String key, Set<String> annotatedEntries) {
+            StringBuilder value = new StringBuilder();
+            for (String entryName : annotatedEntries) {
+                if (entryName.indexOf(',') != -1) {
+                    return;
+                }
+                if (value.length() > 0) {
+                    value.append(',');
+                }
+                value.append(entryName);
+            }
+            used.put(key, value.toString());
+        }
+
+        /**
+         * Write the entries of the JARs used by the current scan, dropping
+         * those of JARs that are no longer present or have changed.
+         */
+        public void save() {
+            if (used.isEmpty() && !file.exists()) {
+                return;
+            }
+            Properties props = new Properties();
+            props.putAll(used);
+            try (OutputStream os = new FileOutputStream(file)) {
+                props.store(os, null);
+            } catch (IOException e) {
+                log.warn(sm.getString("contextConfig.annotationScanCache.saveFail", file), e);
+            }
+        }
+    }
+
     static class JavaClassCacheEntry {
         public final String superclassName;
 
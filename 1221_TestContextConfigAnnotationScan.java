@@ -0,0 +1,330 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.catalina.startup;
+
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.ServletException;
+import javax.servlet.annotation.WebListener;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.apache.catalina.Context;
+import org.apache.catalina.Loader;
+import org.apache.catalina.core.StandardContext;
+import org.apache.catalina.startup.ContextConfig.AnnotationScanCache;
+import org.apache.catalina.startup.ContextConfig.JavaClassCacheEntry;
+import org.apache.tomcat.util.descriptor.web.WebXml;
+
+/**
+ * Tests for scanning the JARs of a web application in parallel and for the
+ * annotation scan cache.
+ */
+public class TestContextConfigAnnotationScan {
+
+    private File tempDir;
+
+    @Before
+    public void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("annotationScan").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        ExpandWar.delete(tempDir);
+    }
+
+
+    @Test
+    public void testParallelHandlesTypes() throws Exception {
+        // The class hierarchy is spread over several JARs so that the JARs
+        // scanned first have subclasses of classes in the JARs scanned later
+        Set<WebXml> fragments = new LinkedHashSet<>();
+        fragments.add(createFragment("leaf1.jar", Leaf1.class));
+        fragments.add(createFragment("leaf2.jar", Leaf2.class, Unrelated.class));
+        fragments.add(createFragment("middle.jar", Middle.class));
+        fragments.add(createFragment("base.jar", Base.class));
+        fragments.add(createFragment("leaf3.jar", Leaf3.class));
+
+        Set<Class<?>> expected = new HashSet<Class<?>>(Arrays.asList(
+                Base.class, Middle.class, Leaf1.class, Leaf2.class, Leaf3.class));
+
+        for (int i = 0; i < 50; i++) {
+            for (int threads : new int[] { 1, 4 }) {
+                ContextConfig config = createHandlesTypesConfig();
+                config.setAnnotationScanThreads(threads);
+                SCI sci = (SCI) config.initializerClassMap.keySet().iterator().next();
+
+                config.processAnnotations(fragments, true,
+                        new HashMap<String,JavaClassCacheEntry>());
+
+                Assert.assertEquals("threads " + threads, expected,
+                        config.initializerClassMap.get(sci));
+            }
+        }
+    }
+
+
+    @Test
+    public void testParallelWebAnnotations() throws Exception {
+        WebXml listenerFragment = createFragment("listener.jar", Listener.class);
+        Set<WebXml> fragments = new LinkedHashSet<>();
+        fragments.add(createFragment("leaf1.jar", Leaf1.class));
+        fragments.add(listenerFragment);
+        fragments.add(createFragment("base.jar", Base.class));
+
+        ContextConfig config = createHandlesTypesConfig();
+        config.setAnnotationScanThreads(3);
+        config.processAnnotations(fragments, false,
+                new HashMap<String,JavaClassCacheEntry>());
+
+        Assert.assertTrue(listenerFragment.getListeners().contains(
+                Listener.class.getName()));
+    }
+
+
+    @Test
+    public void testScanCacheKey() throws Exception {
+        File jarFile = createJar("base.jar", Base.class);
+        AnnotationScanCache cache = new AnnotationScanCache(
+                new File(tempDir, AnnotationScanCache.FILE_NAME));
+
+        URL url = jarFile.toURI().toURL();
+        String key = cache.getKey(url);
+        Assert.assertNotNull(key);
+        Assert.assertEquals(key, cache.getKey(new URL("jar:" + url + "!/")));
+
+        // Not a JAR in the file system
+        Assert.assertNull(cache.getKey(new URL("http://localhost/base.jar")));
+        Assert.assertNull(cache.getKey(new URL("jar:" + url + "!/WEB-INF/lib/nested.jar")));
+
+        // Changed JAR
+        Assert.assertTrue(jarFile.setLastModified(jarFile.lastModified() - 10000));
+        Assert.assertNotEquals(key, cache.getKey(url));
+    }
+
+
+    @Test
+    public void testScanCacheSaveAndLoad() throws Exception {
+        File cacheFile = new File(tempDir, AnnotationScanCache.FILE_NAME);
+        Set<String> entries = new HashSet<>(Arrays.asList("a/A.class", "b/B.class"));
+
+        AnnotationScanCache cache = new AnnotationScanCache(cacheFile);
+        Assert.assertNull(cache.get("one"));
+        cache.put("one", entries);
+        cache.put("two", new HashSet<String>());
+        cache.save();
+
+        cache = new AnnotationScanCache(cacheFile);
+        Assert.assertEquals(entries, cache.get("one"));
+        cache.save();
+
+        // Entries not used by the previous scan are dropped
+        cache = new AnnotationScanCache(cacheFile);
+        Assert.assertEquals(entries, cache.get("one"));
+        Assert.assertNull(cache.get("two"));
+    }
+
+
+    @Test
+    public void testScanCache() throws Exception {
+        File listenerJar = createJar("listener.jar", Listener.class, Unrelated.class);
+        File plainJar = createJar("plain.jar", Base.class);
+
+        for (int i = 0; i < 2; i++) {
+            ContextConfig config = new ContextConfig();
+            StandardContext context = new StandardContext();
+            context.setWorkDir(tempDir.getAbsolutePath());
+            context.setLoader(new TesterLoader());
+            config.context = context;
+            config.setAnnotationScanCache(true);
+
+            WebXml listenerFragment = createFragment(listenerJar);
+            Set<WebXml> fragments = new LinkedHashSet<>();
+            fragments.add(listenerFragment);
+            fragments.add(createFragment(plainJar));
+
+            config.processAnnotations(fragments, false,
+                    new HashMap<String,JavaClassCacheEntry>());
+
+            Assert.assertTrue("run " + i, listenerFragment.getListeners().contains(
+                    Listener.class.getName()));
+        }
+
+        Properties props = new Properties();
+        try (InputStream is = new FileInputStream(
+                new File(tempDir, AnnotationScanCache.FILE_NAME))) {
+            props.load(is);
+        }
+        AnnotationScanCache cache = new AnnotationScanCache(
+                new File(tempDir, AnnotationScanCache.FILE_NAME));
+        Assert.assertEquals(2, props.size());
+        Assert.assertEquals(new HashSet<>(Arrays.asList(entryName(Listener.class))),
+                cache.get(cache.getKey(listenerJar.toURI().toURL())));
+        Assert.assertEquals(new HashSet<String>(),
+                cache.get(cache.getKey(plainJar.toURI().toURL())));
+    }
+
+
+    private ContextConfig createHandlesTypesConfig() {
+        ContextConfig config = new ContextConfig();
+        config.handlesTypesAnnotations = true;
+        config.handlesTypesNonAnnotations = true;
+
+        // Need a Context, Loader and ClassLoader for checkHandleTypes
+        StandardContext context = new StandardContext();
+        context.setLoader(new TesterLoader());
+        config.context = context;
+
+        SCI sci = new SCI();
+        config.initializerClassMap.put(sci, new HashSet<Class<?>>());
+        config.typeInitializerMap.put(Marker.class,
+                new HashSet<ServletContainerInitializer>());
+        config.typeInitializerMap.get(Marker.class).add(sci);
+        return config;
+    }
+
+    private WebXml createFragment(String name, Class<?>... classes)
+            throws IOException {
+        return createFragment(createJar(name, classes));
+    }
+
+    private WebXml createFragment(File jarFile) throws IOException {
+        WebXml fragment = new WebXml();
+        fragment.setURL(jarFile.toURI().toURL());
+        fragment.setWebappJar(true);
+        return fragment;
+    }
+
+    private File createJar(String name, Class<?>... classes) throws IOException {
+        File jarFile = new File(tempDir, name);
+        try (JarOutputStream jos = new JarOutputStream(new FileOutputStream(jarFile))) {
+            for (Class<?> clazz : classes) {
+                jos.putNextEntry(new JarEntry(entryName(clazz)));
+                try (InputStream is = getClass().getClassLoader().getResourceAsStream(
+                        entryName(clazz))) {
+                    byte[] buf = new byte[4096];
+                    int n;
+                    while ((n = is.read(buf)) > 0) {
+                        jos.write(buf, 0, n);
+                    }
+                }
+                jos.closeEntry();
+            }
+        }
+        return jarFile;
+    }
+
+    private static String entryName(Class<?> clazz) {
+        return clazz.getName().replace('.', '/') + ".class";
+    }
+
+
+    public interface Marker {
+    }
+
+    public static class Base implements Marker {
+    }
+
+    public static class Middle extends Base {
+    }
+
+    public static class Leaf1 extends Middle {
+    }
+
+    public static class Leaf2 extends Middle {
+    }
+
+    public static class Leaf3 extends Base {
+    }
+
+    public static class Unrelated {
+    }
+
+    @WebListener
+    public static class Listener implements ServletContextListener {
+
+        @Override
+        public void contextInitialized(ServletContextEvent sce) {
+            // NO-OP
+        }
+
+        @Override
+        public void contextDestroyed(ServletContextEvent sce) {
+            // NO-OP
+        }
+    }
+
+    private static final class SCI implements ServletContainerInitializer {
+
+        @Override
+        public void onStartup(Set<Class<?>> c, ServletContext ctx)
+                throws ServletException {
+            // NO-OP
+        }
+    }
+
+    private static final class TesterLoader implements Loader {
+
+        @Override
+        public void backgroundProcess() {}
+        @Override
+        public ClassLoader getClassLoader() {
+            return this.getClass().getClassLoader();
+        }
+        @Override
+        public Context getContext() { return null; }
+        @Override
+        public void setContext(Context context) {}
+        @Override
+        public boolean getDelegate() { return false; }
+        @Override
+        public void setDelegate(boolean delegate) {}
+        @Override
+        public boolean getReloadable() { return false; }
+        @Override
+        public void setReloadable(boolean reloadable) {}
+        @Override
+        public void addPropertyChangeListener(PropertyChangeListener l) {}
+        @Override
+        public boolean modified() { return false; }
+        @Override
+        public void removePropertyChangeListener(PropertyChangeListener l) {}
+    }
+}
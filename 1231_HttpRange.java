@@ -20,6 +20,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
 
@@ -45,6 +46,15 @@ public abstract class HttpRange {
 
 	private static final String BYTE_RANGE_PREFIX = "bytes=";
 
+	private static final Comparator<ResourceRegion> POSITION_COMPARATOR = new Comparator<ResourceRegion>() {
+		@Override
+		public int compare(ResourceRegion region1, ResourceRegion region2) {
+			long position1 = region1.getPosition();
+			long position2 = region2.getPosition();
+			return (position1 < position2 ? -1 : (position1 == position2 ? 0 : 1));
+		}
+	};
+
 
 	/**
 	 * Turn a {@code Resource} into a {@link ResourceRegion} using the range
@@ -54,20 +64,13 @@ public abstract class HttpRange {
 	 * @since 4.3
 	 */
 	public ResourceRegion toResourceRegion(Resource resource) {
-		// Don't try to determine contentLength on InputStreamResource - cannot be read afterwards...
-		// Note: custom InputStreamResource subclasses could provide a pre-calculated content length!
-		Assert.isTrue(resource.getClass() != InputStreamResource.class,
-				"Cannot convert an InputStreamResource to a ResourceRegion");
-		try {
-			long contentLength = resource.contentLength();
-			Assert.isTrue(contentLength > 0, "Resource content length should be > 0");
-			long start = getRangeStart(contentLength);
-			long end = getRangeEnd(contentLength);
-			return new ResourceRegion(resource, start, end - start + 1);
-		}
-		catch (IOException ex) {
-			throw new IllegalArgumentException("Failed to convert Resource to ResourceRegion", ex);
-		}
+		return toResourceRegion(resource, getLengthFor(resource));
+	}
+
+	private ResourceRegion toResourceRegion(Resource resource, long contentLength) {
+		long start = getRangeStart(contentLength);
+		long end = getRangeEnd(contentLength);
+		return new ResourceRegion(resource, start, end - start + 1);
 	}
 
 	/**
@@ -181,6 +184,66 @@ public abstract class HttpRange {
 		return regions;
 	}
 
+	/**
+	 * Convert the given ranges into {@code ResourceRegion}s, ordered by position,
+	 * with overlapping and adjacent ranges merged into a single region.
+	 * <p>RFC 7233 allows a server to coalesce ranges like this, which keeps the
+	 * number of parts of a {@code multipart/byteranges} response down and avoids
+	 * sending the same bytes more than once. The content length of the resource
+	 * is determined only once for all ranges.
+	 * @param ranges the list of ranges
+	 * @param resource the resource to select the regions from
+	 * @return the coalesced list of regions for the given resource
+	 * @since 4.3.7
+	 * @see #toResourceRegions(List, Resource)
+	 */
+	public static List<ResourceRegion> toCoalescedResourceRegions(List<HttpRange> ranges, Resource resource) {
+		if (CollectionUtils.isEmpty(ranges)) {
+			return Collections.emptyList();
+		}
+		long contentLength = getLengthFor(resource);
+		List<ResourceRegion> regions = new ArrayList<ResourceRegion>(ranges.size());
+		for (HttpRange range : ranges) {
+			regions.add(range.toResourceRegion(resource, contentLength));
+		}
+		if (regions.size() == 1) {
+			return regions;
+		}
+		Collections.sort(regions, POSITION_COMPARATOR);
+
+		List<ResourceRegion> result = new ArrayList<ResourceRegion>(regions.size());
+		ResourceRegion current = regions.get(0);
+		for (int i = 1; i < regions.size(); i++) {
+			ResourceRegion next = regions.get(i);
+			long currentEnd = current.getPosition() + current.getCount();
+			if (next.getPosition() <= currentEnd) {
+				long end = Math.max(currentEnd, next.getPosition() + next.getCount());
+				current = new ResourceRegion(resource, current.getPosition(), end - current.getPosition());
+			}
+			else {
+				result.add(current);
+				current = next;
+			}
+		}
+		result.add(current);
+		return result;
+	}
+
+	private static long getLengthFor(Resource resource) {
+		// Don't try to determine contentLength on InputStreamResource - cannot be read afterwards...
+		// Note: custom InputStreamResource subclasses could provide a pre-calculated content length!
+		Assert.isTrue(resource.getClass() != InputStreamResource.class,
+				"Cannot convert an InputStreamResource to a ResourceRegion");
+		try {
+			long contentLength = resource.contentLength();
+			Assert.isTrue(contentLength > 0, "Resource content length should be > 0");
+			return contentLength;
+		}
+		catch (IOException ex) {
+			throw new IllegalArgumentException("Failed to convert Resource to ResourceRegion", ex);
+		}
+	}
+
 	/**
 	 * Return a string representation of the given list of {@code HttpRange} objects.
 	 * <p>This method can be used to for an {@code Range} header.
@@ -121,6 +121,32 @@ public class HttpRangeTests {
 		assertEquals(6L, region.getCount());
 	}
 
+	@Test
+	public void toCoalescedResourceRegions() {
+		byte[] bytes = "Spring Framework".getBytes(Charset.forName("UTF-8"));
+		ByteArrayResource resource = new ByteArrayResource(bytes);
+		List<HttpRange> ranges = HttpRange.parseRanges("bytes=10-12,0-3,2-5,6-7,-3");
+		List<ResourceRegion> regions = HttpRange.toCoalescedResourceRegions(ranges, resource);
+		assertEquals(2, regions.size());
+		assertEquals(0L, regions.get(0).getPosition());
+		assertEquals(8L, regions.get(0).getCount());
+		assertEquals(10L, regions.get(1).getPosition());
+		assertEquals(6L, regions.get(1).getCount());
+	}
+
+	@Test
+	public void toCoalescedResourceRegionsDisjoint() {
+		byte[] bytes = "Spring Framework".getBytes(Charset.forName("UTF-8"));
+		ByteArrayResource resource = new ByteArrayResource(bytes);
+		List<HttpRange> ranges = HttpRange.parseRanges("bytes=7-9,0-5");
+		List<ResourceRegion> regions = HttpRange.toCoalescedResourceRegions(ranges, resource);
+		assertEquals(2, regions.size());
+		assertEquals(0L, regions.get(0).getPosition());
+		assertEquals(6L, regions.get(0).getCount());
+		assertEquals(7L, regions.get(1).getPosition());
+		assertEquals(3L, regions.get(1).getCount());
+	}
+
 	@Test(expected = IllegalArgumentException.class)
 	public void toResourceRegionInputStreamResource() {
 		InputStreamResource resource = mock(InputStreamResource.class);
@@ -0,0 +1,358 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.converter;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+
+/**
+ * Writes {@link ResourceRegion}s to a {@link WritableByteChannel}, either as a
+ * single region or as the parts of a {@code multipart/byteranges} body.
+ *
+ * <p>Regions of file-backed resources are transferred with
+ * {@link FileChannel#transferTo}, so the content does not pass through heap
+ * buffers when the target channel supports it (e.g. a {@code SocketChannel});
+ * the channel of a file is opened once for consecutive regions of the same
+ * resource. Other resources are copied from their {@code InputStream}.
+ * Part headers and stream copies use small buffers taken from a bounded pool
+ * that is shared by all callers, so an instance is meant to be reused.
+ *
+ * <p>Use {@link org.springframework.http.HttpRange#toCoalescedResourceRegions}
+ * to merge overlapping and adjacent ranges before writing them.
+ *
+ * @since 4.3.7
+ * @see org.springframework.http.HttpRange#toCoalescedResourceRegions
+ */
+public class ResourceRegionWriter {
+
+	private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+	private static final int DEFAULT_MAX_POOLED_BUFFERS = 64;
+
+
+	private final int bufferSize;
+
+	private final int maxPooledBuffers;
+
+	private final Queue<ByteBuffer> bufferPool = new ConcurrentLinkedQueue<ByteBuffer>();
+
+	private final AtomicInteger pooledBuffers = new AtomicInteger();
+
+
+	/**
+	 * Create a new {@code ResourceRegionWriter} with 4 KB buffers, up to 64 of
+	 * which are kept for reuse.
+	 */
+	public ResourceRegionWriter() {
+		this(DEFAULT_BUFFER_SIZE, DEFAULT_MAX_POOLED_BUFFERS);
+	}
+
+	/**
+	 * Create a new {@code ResourceRegionWriter}.
+	 * @param bufferSize the size of the buffers used for part headers and for
+	 * copying resources that are not backed by a file
+	 * @param maxPooledBuffers the maximum number of buffers kept for reuse
+	 */
+	public ResourceRegionWriter(int bufferSize, int maxPooledBuffers) {
+		Assert.isTrue(bufferSize > 0, "Buffer size must be > 0");
+		Assert.isTrue(maxPooledBuffers >= 0, "Max pooled buffers must be >= 0");
+		this.bufferSize = bufferSize;
+		this.maxPooledBuffers = maxPooledBuffers;
+	}
+
+
+	/**
+	 * Write the content of a single region to the given stream.
+	 * @param region the region to write
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeRegion(ResourceRegion region, OutputStream out) throws IOException {
+		writeRegion(region, Channels.newChannel(out));
+	}
+
+	/**
+	 * Write the content of a single region to the given channel.
+	 * @param region the region to write
+	 * @param channel the (blocking) channel to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeRegion(ResourceRegion region, WritableByteChannel channel) throws IOException {
+		Assert.notNull(region, "ResourceRegion must not be null");
+		RegionSource source = new RegionSource();
+		try {
+			source.transferTo(region, channel);
+		}
+		finally {
+			source.close();
+		}
+	}
+
+	/**
+	 * Write the given regions as the parts of a {@code multipart/byteranges}
+	 * body to the given stream.
+	 * @param regions the regions to write
+	 * @param boundary the multipart boundary
+	 * @param contentType the content type of the parts, or {@code null} if none
+	 * @param out the stream to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeRegions(Collection<ResourceRegion> regions, String boundary, MediaType contentType,
+			OutputStream out) throws IOException {
+
+		writeRegions(regions, boundary, contentType, Channels.newChannel(out));
+	}
+
+	/**
+	 * Write the given regions as the parts of a {@code multipart/byteranges}
+	 * body to the given channel.
+	 * @param regions the regions to write
+	 * @param boundary the multipart boundary
+	 * @param contentType the content type of the parts, or {@code null} if none
+	 * @param channel the (blocking) channel to write to
+	 * @throws IOException in case of I/O errors
+	 */
+	public void writeRegions(Collection<ResourceRegion> regions, String boundary, MediaType contentType,
+			WritableByteChannel channel) throws IOException {
+
+		Assert.notNull(regions, "ResourceRegions must not be null");
+		Assert.hasLength(boundary, "Boundary must not be empty");
+		String contentTypeHeader = (contentType != null ? "Content-Type: " + contentType + "\r\n" : null);
+
+		ByteBuffer buffer = obtainBuffer();
+		RegionSource source = new RegionSource();
+		try {
+			for (ResourceRegion region : regions) {
+				long start = region.getPosition();
+				long end = start + region.getCount() - 1;
+				put(buffer, "\r\n--", channel);
+				put(buffer, boundary, channel);
+				put(buffer, "\r\n", channel);
+				if (contentTypeHeader != null) {
+					put(buffer, contentTypeHeader, channel);
+				}
+				put(buffer, "Content-Range: bytes ", channel);
+				put(buffer, Long.toString(start), channel);
+				put(buffer, "-", channel);
+				put(buffer, Long.toString(end), channel);
+				put(buffer, "/", channel);
+				put(buffer, Long.toString(source.contentLength(region.getResource())), channel);
+				put(buffer, "\r\n\r\n", channel);
+				flush(buffer, channel);
+				source.transferTo(region, channel);
+			}
+			put(buffer, "\r\n--", channel);
+			put(buffer, boundary, channel);
+			put(buffer, "--", channel);
+			flush(buffer, channel);
+		}
+		finally {
+			source.close();
+			releaseBuffer(buffer);
+		}
+	}
+
+
+	private ByteBuffer obtainBuffer() {
+		ByteBuffer buffer = this.bufferPool.poll();
+		if (buffer == null) {
+			return ByteBuffer.allocate(this.bufferSize);
+		}
+		this.pooledBuffers.decrementAndGet();
+		buffer.clear();
+		return buffer;
+	}
+
+	private void releaseBuffer(ByteBuffer buffer) {
+		if (this.pooledBuffers.incrementAndGet() <= this.maxPooledBuffers) {
+			this.bufferPool.offer(buffer);
+		}
+		else {
+			this.pooledBuffers.decrementAndGet();
+		}
+	}
+
+	/**
+	 * Append the given ASCII text to the buffer, flushing it whenever it is full.
+	 */
+	private static void put(ByteBuffer buffer, String text, WritableByteChannel channel) throws IOException {
+		for (int i = 0; i < text.length(); i++) {
+			if (!buffer.hasRemaining()) {
+				flush(buffer, channel);
+			}
+			buffer.put((byte) text.charAt(i));
+		}
+	}
+
+	private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+
+	/**
+	 * Content of the regions of one request, keeping the channel of the most
+	 * recently used file open until the next region refers to another resource.
+	 */
+	private class RegionSource {
+
+		private Resource resource;
+
+		private long contentLength = -1;
+
+		private FileInputStream fileStream;
+
+		private FileChannel fileChannel;
+
+		public long contentLength(Resource resource) throws IOException {
+			select(resource);
+			if (this.contentLength < 0) {
+				this.contentLength = resource.contentLength();
+			}
+			return this.contentLength;
+		}
+
+		public void transferTo(ResourceRegion region, WritableByteChannel channel) throws IOException {
+			select(region.getResource());
+			if (this.fileChannel == null) {
+				File file = getFile(region.getResource());
+				if (file != null) {
+					this.fileStream = new FileInputStream(file);
+					this.fileChannel = this.fileStream.getChannel();
+				}
+			}
+			if (this.fileChannel != null) {
+				transferFile(region, channel);
+			}
+			else {
+				copyStream(region, channel);
+			}
+		}
+
+		private void select(Resource resource) throws IOException {
+			if (this.resource != resource) {
+				close();
+				this.resource = resource;
+				this.contentLength = -1;
+			}
+		}
+
+		private void transferFile(ResourceRegion region, WritableByteChannel channel) throws IOException {
+			long position = region.getPosition();
+			long remaining = region.getCount();
+			while (remaining > 0) {
+				long count = this.fileChannel.transferTo(position, remaining, channel);
+				if (count <= 0 && position >= this.fileChannel.size()) {
+					throw new EOFException("Resource " + region.getResource() + " ended before position " +
+							(region.getPosition() + region.getCount()));
+				}
+				position += count;
+				remaining -= count;
+			}
+		}
+
+		private void copyStream(ResourceRegion region, WritableByteChannel channel) throws IOException {
+			InputStream in = region.getResource().getInputStream();
+			ByteBuffer buffer = obtainBuffer();
+			try {
+				long skip = region.getPosition();
+				while (skip > 0) {
+					long skipped = in.skip(skip);
+					if (skipped <= 0) {
+						if (in.read() == -1) {
+							throw new EOFException("Resource " + region.getResource() +
+									" ended before position " + region.getPosition());
+						}
+						skipped = 1;
+					}
+					skip -= skipped;
+				}
+				long remaining = region.getCount();
+				while (remaining > 0) {
+					int count = in.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), remaining));
+					if (count == -1) {
+						throw new EOFException("Resource " + region.getResource() + " ended before position " +
+								(region.getPosition() + region.getCount()));
+					}
+					buffer.limit(count);
+					while (buffer.hasRemaining()) {
+						channel.write(buffer);
+					}
+					buffer.clear();
+					remaining -= count;
+				}
+			}
+			finally {
+				releaseBuffer(buffer);
+				try {
+					in.close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+			}
+		}
+
+		public void close() {
+			if (this.fileStream != null) {
+				try {
+					this.fileStream.close();
+				}
+				catch (IOException ex) {
+					// ignore
+				}
+				this.fileStream = null;
+				this.fileChannel = null;
+			}
+		}
+	}
+
+
+	private static File getFile(Resource resource) {
+		try {
+			return resource.getFile();
+		}
+		catch (IOException ex) {
+			// not backed by a file in the file system
+			return null;
+		}
+		catch (UnsupportedOperationException ex) {
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2017 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.http.converter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link ResourceRegionWriter}.
+ */
+public class ResourceRegionWriterTests {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+	private static final byte[] CONTENT = "Spring Framework".getBytes(UTF_8);
+
+	private static final String EXPECTED_MULTIPART = "\r\n--bound\r\n" +
+			"Content-Type: text/plain\r\n" +
+			"Content-Range: bytes 0-5/16\r\n\r\n" +
+			"Spring" +
+			"\r\n--bound\r\n" +
+			"Content-Type: text/plain\r\n" +
+			"Content-Range: bytes 7-15/16\r\n\r\n" +
+			"Framework" +
+			"\r\n--bound--";
+
+	@Rule
+	public final TemporaryFolder folder = new TemporaryFolder();
+
+	private final ResourceRegionWriter writer = new ResourceRegionWriter(8, 2);
+
+
+	@Test
+	public void writeRegionFromFile() throws Exception {
+		Resource resource = createFileResource();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.writer.writeRegion(new ResourceRegion(resource, 7, 9), out);
+		assertEquals("Framework", out.toString("UTF-8"));
+	}
+
+	@Test
+	public void writeRegionFromStream() throws Exception {
+		Resource resource = new ByteArrayResource(CONTENT);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.writer.writeRegion(new ResourceRegion(resource, 7, 9), out);
+		assertEquals("Framework", out.toString("UTF-8"));
+	}
+
+	@Test
+	public void writeRegionsFromFile() throws Exception {
+		assertEquals(EXPECTED_MULTIPART, writeRegions(createFileResource()));
+	}
+
+	@Test
+	public void writeRegionsFromStream() throws Exception {
+		assertEquals(EXPECTED_MULTIPART, writeRegions(new ByteArrayResource(CONTENT)));
+	}
+
+	@Test
+	public void writeCoalescedRegions() throws Exception {
+		Resource resource = createFileResource();
+		List<HttpRange> ranges = HttpRange.parseRanges("bytes=7-9,0-3,10-15,2-5");
+		List<ResourceRegion> regions = HttpRange.toCoalescedResourceRegions(ranges, resource);
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.writer.writeRegions(regions, "bound", MediaType.TEXT_PLAIN, out);
+		assertEquals(EXPECTED_MULTIPART, out.toString("UTF-8"));
+	}
+
+
+	private String writeRegions(Resource resource) throws Exception {
+		List<ResourceRegion> regions = Arrays.asList(
+				new ResourceRegion(resource, 0, 6), new ResourceRegion(resource, 7, 9));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		this.writer.writeRegions(regions, "bound", MediaType.TEXT_PLAIN, out);
+		return out.toString("UTF-8");
+	}
+
+	private Resource createFileResource() throws Exception {
+		File file = this.folder.newFile();
+		FileOutputStream out = new FileOutputStream(file);
+		try {
+			out.write(CONTENT);
+		}
+		finally {
+			out.close();
+		}
+		return new FileSystemResource(file);
+	}
+
+}
@@ -265,20 +265,33 @@ public class Queue extends ResourceController implements Saveable {
          * @since 2.37
          */
         public @CheckForNull CauseOfBlockage getCauseOfBlockage(BuildableItem item) {
+            return getCauseOfBlockage(item, null);
+        }
+
+        /**
+         * Same as {@link #getCauseOfBlockage(BuildableItem)}, but remembers the outcome of the checks that only
+         * depend on the {@link Node}, so that they are evaluated once per node rather than once per executor
+         * when offering the same item to all the parked executors.
+         *
+         * @param nodeReasons results of the node checks for this item, keyed by node, or null not to remember them
+         */
+        private @CheckForNull CauseOfBlockage getCauseOfBlockage(BuildableItem item, @CheckForNull Map<Node, CauseOfBlockage> nodeReasons) {
             Node node = getNode();
             if (node == null) {
                 return CauseOfBlockage.fromMessage(Messages._Queue_node_has_been_removed_from_configuration(executor.getOwner().getDisplayName()));
             }
-            CauseOfBlockage reason = node.canTake(item);
+            CauseOfBlockage reason;
+            if (nodeReasons != null && nodeReasons.containsKey(node)) {
+                reason = nodeReasons.get(node);
+            } else {
+                reason = getCauseOfBlockage(node, item);
+                if (nodeReasons != null) {
+                    nodeReasons.put(node, reason);
+                }
+            }
             if (reason != null) {
                 return reason;
             }
-            for (QueueTaskDispatcher d : QueueTaskDispatcher.all()) {
-                reason = d.canTake(node, item);
-                if (reason != null) {
-                    return reason;
-                }
-            }
             // inlining isAvailable:
             if (workUnit != null) { // unlikely in practice (should not have even found this executor if so)
                 return CauseOfBlockage.fromMessage(Messages._Queue_executor_slot_already_in_use());
@@ -292,6 +305,20 @@ public class Queue extends ResourceController implements Saveable {
             return null;
         }
 
+        private static @CheckForNull CauseOfBlockage getCauseOfBlockage(Node node, BuildableItem item) {
+            CauseOfBlockage reason = node.canTake(item);
+            if (reason != null) {
+                return reason;
+            }
+            for (QueueTaskDispatcher d : QueueTaskDispatcher.all()) {
+                reason = d.canTake(node, item);
+                if (reason != null) {
+                    return reason;
+                }
+            }
+            return null;
+        }
+
         /**
          * Is this executor ready to accept some tasks?
          */
@@ -1456,6 +1483,7 @@ public class Queue extends ResourceController implements Saveable {
         try { try {
 
             LOGGER.log(Level.FINE, "Queue maintenance started on {0} with {1}", new Object[] {this, snapshot});
+            final long start = System.nanoTime();
 
             // The executors that are currently waiting for a job to run.
             Map<Executor, JobOffer> parked = new HashMap<Executor, JobOffer>();
@@ -1497,6 +1525,7 @@ public class Queue extends ResourceController implements Saveable {
                 }
             }
 
+            final long parkedDone = System.nanoTime();
             final QueueSorter s = sorter;
 
             {// blocked -> buildable
@@ -1533,11 +1562,14 @@ public class Queue extends ResourceController implements Saveable {
                 }
             }
 
+            final long blockedDone = System.nanoTime();
+
             // waitingList -> buildable/blocked
+            final Calendar now = new GregorianCalendar();
             while (!waitingList.isEmpty()) {
                 WaitingItem top = peek();
 
-                if (top.timestamp.compareTo(new GregorianCalendar()) > 0) {
+                if (top.timestamp.compareTo(now) > 0) {
                     LOGGER.log(Level.FINEST, "Finished moving all ready items from queue.");
                     break; // finished moving all ready items from queue
                 }
@@ -1562,6 +1594,8 @@ public class Queue extends ResourceController implements Saveable {
                 }
             }
 
+            final long waitingDone = System.nanoTime();
+
             if (s != null)
                 s.sortBuildableItems(buildables);
             
@@ -1597,8 +1631,9 @@ public class Queue extends ResourceController implements Saveable {
 
                     List<JobOffer> candidates = new ArrayList<>(parked.size());
                     List<CauseOfBlockage> reasons = new ArrayList<>(parked.size());
+                    Map<Node, CauseOfBlockage> nodeReasons = new HashMap<>();
                     for (JobOffer j : parked.values()) {
-                        CauseOfBlockage reason = j.getCauseOfBlockage(p);
+                        CauseOfBlockage reason = j.getCauseOfBlockage(p, nodeReasons);
                         if (reason == null) {
                             LOGGER.log(Level.FINEST,
                                     "{0} is a potential candidate for task {1}",
@@ -1648,6 +1683,18 @@ public class Queue extends ResourceController implements Saveable {
                     updateSnapshot();
                 }
             }
+
+            if (LOGGER.isLoggable(Level.FINE)) {
+                long end = System.nanoTime();
+                LOGGER.log(Level.FINE, "Queue maintenance completed in {0}ms (parked executors: {1}ms, blocked: {2}ms, "
+                                + "waiting: {3}ms, buildables: {4}ms) with {5} parked executor(s)",
+                        new Object[] {TimeUnit.NANOSECONDS.toMillis(end - start),
+                                TimeUnit.NANOSECONDS.toMillis(parkedDone - start),
+                                TimeUnit.NANOSECONDS.toMillis(blockedDone - parkedDone),
+                                TimeUnit.NANOSECONDS.toMillis(waitingDone - blockedDone),
+                                TimeUnit.NANOSECONDS.toMillis(end - waitingDone),
+                                parked.size()});
+            }
         } finally { updateSnapshot(); } } finally {
             lock.unlock();
         }
@@ -45,9 +45,12 @@ import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLEngine;
@@ -86,6 +89,13 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
 
     private volatile AsynchronousChannelGroup asynchronousChannelGroup = null;
     private final Object asynchronousChannelGroupLock = new Object();
+    private volatile AsynchronousChannelGroup clientChannelGroup = null;
+
+    private volatile int maxConcurrentHandshakes = -1;
+    private volatile Semaphore handshakePermits = null;
+    // Bucket n counts connections established in less than 2^n ms (bucket 0
+    // in less than 1 ms), the last bucket counts all slower connections
+    private final AtomicLongArray connectLatencyCounts = new AtomicLongArray(16);
 
     private final Log log = LogFactory.getLog(WsWebSocketContainer.class); // must not be static
     private final Map<Endpoint, Set<WsSession>> endpointSessionMap =
@@ -191,12 +201,59 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
     public Session connectToServer(Endpoint endpoint,
             ClientEndpointConfig clientEndpointConfiguration, URI path)
             throws DeploymentException {
-        return connectToServerRecursive(endpoint, clientEndpointConfiguration, path, new HashSet<>());
+
+        Semaphore permits = handshakePermits;
+        if (permits != null) {
+            long timeout = getTimeout(clientEndpointConfiguration.getUserProperties());
+            try {
+                if (!permits.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new DeploymentException(sm.getString(
+                            "wsWebSocketContainer.maxConcurrentHandshakes",
+                            Integer.toString(maxConcurrentHandshakes)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DeploymentException(
+                        sm.getString("wsWebSocketContainer.handshakeInterrupted"), e);
+            }
+        }
+        HandshakePermit permit = new HandshakePermit(permits);
+        try {
+            return connectToServerRecursive(endpoint, clientEndpointConfiguration, path,
+                    new HashSet<>(), System.nanoTime(), permit);
+        } finally {
+            // Only still held if the handshake failed
+            permit.release();
+        }
+    }
+
+
+    /**
+     * Connects the endpoint to the server using a thread of the given executor
+     * so that many connections can be established concurrently. The number of
+     * opening handshakes in progress at any one time is limited by
+     * {@link #setMaxConcurrentHandshakes(int)}.
+     *
+     * @param endpoint                      The endpoint to connect
+     * @param clientEndpointConfiguration   The configuration for the endpoint
+     * @param path                          The URI of the server endpoint
+     * @param executor                      The executor that performs the
+     *                                      connection
+     *
+     * @return A future for the resulting session. If the connection fails the
+     *         future completes with an {@link ExecutionException} that wraps
+     *         the {@link DeploymentException}.
+     */
+    public Future<Session> connectToServerAsync(Endpoint endpoint,
+            ClientEndpointConfig clientEndpointConfiguration, URI path,
+            ExecutorService executor) {
+        return executor.submit(() -> connectToServer(endpoint, clientEndpointConfiguration, path));
     }
 
+
     private Session connectToServerRecursive(Endpoint endpoint,
             ClientEndpointConfig clientEndpointConfiguration, URI path,
-            Set<URI> redirectSet)
+            Set<URI> redirectSet, long connectStart, HandshakePermit permit)
             throws DeploymentException {
 
         boolean secure = false;
@@ -284,11 +341,7 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
         Map<String,Object> userProperties = clientEndpointConfiguration.getUserProperties();
 
         // Get the connection timeout
-        long timeout = Constants.IO_TIMEOUT_MS_DEFAULT;
-        String timeoutValue = (String) userProperties.get(Constants.IO_TIMEOUT_MS_PROPERTY);
-        if (timeoutValue != null) {
-            timeout = Long.valueOf(timeoutValue).intValue();
-        }
+        long timeout = getTimeout(userProperties);
 
         // Set-up
         // Same size as the WsFrame input buffer
@@ -389,7 +442,8 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
                                 Integer.toString(maxRedirects)));
                     }
 
-                    return connectToServerRecursive(endpoint, clientEndpointConfiguration, redirectLocation, redirectSet);
+                    return connectToServerRecursive(endpoint, clientEndpointConfiguration, redirectLocation,
+                            redirectSet, connectStart, permit);
 
                 }
 
@@ -426,7 +480,8 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
                     userProperties.put(Constants.AUTHORIZATION_HEADER_NAME, auth.getAuthorization(
                             requestUri, wwwAuthenticateHeaders.get(0), userProperties));
 
-                    return connectToServerRecursive(endpoint, clientEndpointConfiguration, path, redirectSet);
+                    return connectToServerRecursive(endpoint, clientEndpointConfiguration, path, redirectSet,
+                            connectStart, permit);
 
                 }
 
@@ -489,6 +544,10 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
             }
         }
 
+        // The handshake response has been processed so let the next
+        // connection start its handshake before the endpoint is opened
+        permit.release();
+
         // Switch to WebSocket
         WsRemoteEndpointImplClient wsRemoteEndpointClient = new WsRemoteEndpointImplClient(channel);
 
@@ -505,6 +564,7 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
 
         endpoint.onOpen(wsSession, clientEndpointConfiguration);
         registerSession(endpoint, wsSession);
+        recordConnectLatency(System.nanoTime() - connectStart);
 
         /* It is possible that the server sent one or more messages as soon as
          * the WebSocket connection was established. Depending on the exact
@@ -522,6 +582,24 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
     }
 
 
+    private static long getTimeout(Map<String,Object> userProperties) {
+        long timeout = Constants.IO_TIMEOUT_MS_DEFAULT;
+        String timeoutValue = (String) userProperties.get(Constants.IO_TIMEOUT_MS_PROPERTY);
+        if (timeoutValue != null) {
+            timeout = Long.valueOf(timeoutValue).intValue();
+        }
+        return timeout;
+    }
+
+
+    private void recordConnectLatency(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 64 - Long.numberOfLeadingZeros(millis);
+        connectLatencyCounts.incrementAndGet(
+                Math.min(bucket, connectLatencyCounts.length() - 1));
+    }
+
+
     private static void writeRequest(AsyncChannelWrapper channel, ByteBuffer request,
             long timeout) throws TimeoutException, InterruptedException, ExecutionException {
         int toWrite = request.limit();
@@ -1022,10 +1100,78 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
     }
 
 
+    /**
+     * Sets the group used for the channels of client connections created by
+     * this container instead of the group shared by all WebSocket clients.
+     * This allows the number of threads processing client I/O to be sized
+     * independently. The group is not shut down by {@link #destroy()}.
+     *
+     * @param group The group to use or {@code null} to use the shared default
+     */
+    public void setAsynchronousChannelGroup(AsynchronousChannelGroup group) {
+        this.clientChannelGroup = group;
+    }
+
+
+    /**
+     * Sets the maximum number of opening handshakes, from opening the
+     * connection to processing the server's response, that may be in progress
+     * at the same time. Further connection attempts wait for up to the I/O
+     * timeout of the connection before failing.
+     *
+     * @param maxConcurrentHandshakes The maximum or a value less than one for
+     *                                no limit, which is the default
+     */
+    public void setMaxConcurrentHandshakes(int maxConcurrentHandshakes) {
+        this.maxConcurrentHandshakes = maxConcurrentHandshakes;
+        if (maxConcurrentHandshakes > 0) {
+            handshakePermits = new Semaphore(maxConcurrentHandshakes);
+        } else {
+            handshakePermits = null;
+        }
+    }
+
+
+    public int getMaxConcurrentHandshakes() {
+        return maxConcurrentHandshakes;
+    }
+
+
+    /**
+     * Obtain the distribution of the times taken to establish client
+     * connections, including the opening handshake and the endpoint's
+     * {@code onOpen} method. Element n of the returned array is the number of
+     * connections established in at least 2^(n-1) ms and less than 2^n ms,
+     * element 0 those established in less than 1 ms and the last element all
+     * that took longer.
+     *
+     * @return A snapshot of the connection latency counts
+     */
+    public long[] getConnectLatencyHistogram() {
+        long[] result = new long[connectLatencyCounts.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = connectLatencyCounts.get(i);
+        }
+        return result;
+    }
+
+
+    /**
+     * @return The number of sessions currently registered with this container
+     */
+    public int getOpenSessionCount() {
+        return sessions.size();
+    }
+
+
     private AsynchronousChannelGroup getAsynchronousChannelGroup() {
+        AsynchronousChannelGroup result = clientChannelGroup;
+        if (result != null) {
+            return result;
+        }
         // Use AsyncChannelGroupUtil to share a common group amongst all
         // WebSocket clients
-        AsynchronousChannelGroup result = asynchronousChannelGroup;
+        result = asynchronousChannelGroup;
         if (result == null) {
             synchronized (asynchronousChannelGroupLock) {
                 if (asynchronousChannelGroup == null) {
@@ -1073,6 +1219,29 @@ public class WsWebSocketContainer implements WebSocketContainer, BackgroundProce
     }
 
 
+    /**
+     * A permit to perform an opening handshake, held across any redirects and
+     * authentication retries of the same connection attempt. It may safely be
+     * released more than once.
+     */
+    private static class HandshakePermit {
+        private final Semaphore permits;
+        private boolean released;
+
+        public HandshakePermit(Semaphore permits) {
+            this.permits = permits;
+        }
+
+
+        public void release() {
+            if (permits != null && !released) {
+                released = true;
+                permits.release();
+            }
+        }
+    }
+
+
     private static class HttpResponse {
         private final int status;
         private final HandshakeResponse handshakeResponse;
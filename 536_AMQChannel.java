@@ -186,6 +186,11 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
     private long _blockingTimeout;
     private boolean _confirmOnPublish;
     private long _confirmedMessageCounter;
+    /**
+     * The publisher confirm most recently recorded as an unfinished command, which subsequent confirms are
+     * coalesced into for as long as no other command or confirm frame is issued in the meantime.
+     */
+    private PublishConfirmAction _pendingPublishConfirm;
 
     private boolean _wireBlockingState;
 
@@ -452,6 +457,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
                                 {
                                     if (_confirmOnPublish)
                                     {
+                                        _pendingPublishConfirm = null;
                                         _connection.writeFrame(new AMQFrame(_channelId,
                                                                             new BasicNackBody(_confirmedMessageCounter,
                                                                                               false,
@@ -465,6 +471,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
                                 {
                                     if (_confirmOnPublish)
                                     {
+                                        _pendingPublishConfirm = null;
                                         _connection.writeFrame(new AMQFrame(_channelId,
                                                                             new BasicAckBody(_confirmedMessageCounter,
                                                                                              false)));
@@ -477,29 +484,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
                         {
                             if (_confirmOnPublish)
                             {
-                                recordFuture(Futures.immediateFuture(null),
-                                             new ServerTransaction.Action()
-                                             {
-                                                 private final long _deliveryTag = _confirmedMessageCounter;
-
-                                                 @Override
-                                                 public void postCommit()
-                                                 {
-                                                     BasicAckBody body = _connection.getMethodRegistry()
-                                                                                    .createBasicAckBody(
-                                                                                            _deliveryTag, false);
-                                                     _connection.writeFrame(body.generateFrame(_channelId));
-                                                 }
-
-                                                 @Override
-                                                 public void onRollback()
-                                                 {
-                                                     final BasicNackBody body = new BasicNackBody(_deliveryTag,
-                                                                                                  false,
-                                                                                                  false);
-                                                     _connection.writeFrame(new AMQFrame(_channelId, body));
-                                                 }
-                                             });
+                                recordPublishConfirm(_confirmedMessageCounter);
                             }
                         }
                     }
@@ -523,6 +508,22 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
 
     }
 
+    /**
+     * Records that the message with the given delivery tag has been routed and so needs to be confirmed to the
+     * publisher. Consecutive confirms issued within the same network read are coalesced into a single
+     * basic.ack with the multiple flag set, rather than one frame per message.
+     */
+    private void recordPublishConfirm(final long deliveryTag)
+    {
+        final PublishConfirmAction pendingConfirm = _pendingPublishConfirm;
+        if (pendingConfirm == null || !pendingConfirm.extend(deliveryTag))
+        {
+            final PublishConfirmAction confirm = new PublishConfirmAction(deliveryTag);
+            recordFuture(Futures.<Void>immediateFuture(null), confirm);
+            _pendingPublishConfirm = confirm;
+        }
+    }
+
     private void publishContentBody(ContentBody contentBody)
     {
         if (LOGGER.isDebugEnabled())
@@ -1440,6 +1441,49 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
         }
     }
 
+    private class PublishConfirmAction implements ServerTransaction.Action
+    {
+        private final long _firstDeliveryTag;
+        private long _lastDeliveryTag;
+        private boolean _completed;
+
+        public PublishConfirmAction(final long deliveryTag)
+        {
+            _firstDeliveryTag = deliveryTag;
+            _lastDeliveryTag = deliveryTag;
+        }
+
+        boolean extend(final long deliveryTag)
+        {
+            if (_completed || deliveryTag != _lastDeliveryTag + 1)
+            {
+                return false;
+            }
+            _lastDeliveryTag = deliveryTag;
+            return true;
+        }
+
+        @Override
+        public void postCommit()
+        {
+            _completed = true;
+            BasicAckBody body = _connection.getMethodRegistry()
+                                           .createBasicAckBody(_lastDeliveryTag,
+                                                               _lastDeliveryTag != _firstDeliveryTag);
+            _connection.writeFrame(body.generateFrame(_channelId));
+        }
+
+        @Override
+        public void onRollback()
+        {
+            _completed = true;
+            final BasicNackBody body = new BasicNackBody(_lastDeliveryTag,
+                                                         _lastDeliveryTag != _firstDeliveryTag,
+                                                         false);
+            _connection.writeFrame(new AMQFrame(_channelId, body));
+        }
+    }
+
     @Override
     public synchronized void block()
     {
@@ -1607,6 +1651,8 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
     @Override
     public void recordFuture(final ListenableFuture<Void> future, final ServerTransaction.Action action)
     {
+        // confirms must not be coalesced across other commands, or they could be sent ahead of them
+        _pendingPublishConfirm = null;
         _unfinishedCommandsQueue.add(new AsyncCommand(future, action));
     }
 
@@ -1617,6 +1663,7 @@ public class AMQChannel extends AbstractAMQPSession<AMQChannel, ConsumerTarget_0
             LOGGER.debug("sync() called on channel " + debugIdentity());
         }
 
+        _pendingPublishConfirm = null;
         AsyncCommand cmd;
         while((cmd = _unfinishedCommandsQueue.poll()) != null)
         {
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
@@ -34,6 +35,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.zip.Deflater;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
@@ -87,7 +92,7 @@ public final class ZipUtil {
     ZipFile zf = null;
     try {
       zf = new ZipFile(zip);
-      return zf.getEntry(name) != null;
+      return containsEntry(zf, name);
     }
     catch (IOException e) {
       throw ZipExceptionUtil.rethrow(e);
@@ -97,6 +102,22 @@ public final class ZipUtil {
     }
   }
 
+  /**
+   * Checks if the ZIP file contains the given entry.
+   * <p>
+   * The ZIP file is not closed, so it can be reused for repeated lookups
+   * without reading its central directory again.
+   *
+   * @param zf
+   *          ZIP file.
+   * @param name
+   *          entry name.
+   * @return <code>true</code> if the ZIP file contains the given entry.
+   */
+  public static boolean containsEntry(ZipFile zf, String name) {
+    return zf.getEntry(name) != null;
+  }
+
   /**
    * Returns the compression method of a given entry of the ZIP file.
    *
@@ -128,11 +149,7 @@ public final class ZipUtil {
     ZipFile zf = null;
     try {
       zf = new ZipFile(zip);
-      ZipEntry zipEntry = zf.getEntry(name);
-      if (zipEntry == null) {
-        return -1;
-      }
-      return zipEntry.getMethod();
+      return getCompressionMethodOfEntry(zf, name);
     }
     catch (IOException e) {
       throw ZipExceptionUtil.rethrow(e);
@@ -142,6 +159,27 @@ public final class ZipUtil {
     }
   }
 
+  /**
+   * Returns the compression method of a given entry of the ZIP file.
+   * <p>
+   * The ZIP file is not closed, so it can be reused for repeated lookups
+   * without reading its central directory again.
+   *
+   * @param zf
+   *          ZIP file.
+   * @param name
+   *          entry name.
+   * @return Returns <code>ZipEntry.STORED</code>, <code>ZipEntry.DEFLATED</code> or -1 if
+   *         the ZIP file does not contain the given entry.
+   */
+  public static int getCompressionMethodOfEntry(ZipFile zf, String name) {
+    ZipEntry zipEntry = zf.getEntry(name);
+    if (zipEntry == null) {
+      return -1;
+    }
+    return zipEntry.getMethod();
+  }
+
   /**
    * Checks if the ZIP file contains any of the given entries.
    *
@@ -156,12 +194,7 @@ public final class ZipUtil {
     ZipFile zf = null;
     try {
       zf = new ZipFile(zip);
-      for (int i = 0; i < names.length; i++) {
-        if (zf.getEntry(names[i]) != null) {
-          return true;
-        }
-      }
-      return false;
+      return containsAnyEntry(zf, names);
     }
     catch (IOException e) {
       throw ZipExceptionUtil.rethrow(e);
@@ -171,6 +204,28 @@ public final class ZipUtil {
     }
   }
 
+  /**
+   * Checks if the ZIP file contains any of the given entries.
+   * <p>
+   * The ZIP file is not closed, so it can be reused for repeated lookups
+   * without reading its central directory again.
+   *
+   * @param zf
+   *          ZIP file.
+   * @param names
+   *          entry names.
+   * @return <code>true</code> if the ZIP file contains any of the given
+   *         entries.
+   */
+  public static boolean containsAnyEntry(ZipFile zf, String[] names) {
+    for (int i = 0; i < names.length; i++) {
+      if (zf.getEntry(names[i]) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Unpacks a single entry from a ZIP file.
    *
@@ -526,6 +581,97 @@ public final class ZipUtil {
     }
   }
 
+  /**
+   * Reads the given ZIP file and executes the given action for each entry,
+   * processing the entries concurrently on the given executor.
+   * <p>
+   * For each entry the corresponding input stream is also passed to the action, which is inflated on the
+   * thread running the action. The action must therefore be thread-safe and there is no guarantee about the
+   * order in which entries are processed. If you want to stop the loop then throw a ZipBreakException, entries
+   * which have not been started yet are then skipped.
+   * <p>
+   * The executor is not shut down. The method returns after all the entries have been processed.
+   *
+   * @param zf
+   *          input ZIP file (it will not be closed automatically).
+   * @param action
+   *          thread-safe action to be called for each entry.
+   * @param executor
+   *          executor used to process the entries.
+   *
+   * @see ZipEntryCallback
+   * @see #iterate(File, ZipEntryCallback)
+   */
+  public static void iterate(final ZipFile zf, final ZipEntryCallback action, ExecutorService executor) {
+    final boolean[] stopped = new boolean[1];
+    List<Future<Void>> futures = new ArrayList<Future<Void>>();
+    try {
+      Enumeration<? extends ZipEntry> en = zf.entries();
+      while (en.hasMoreElements()) {
+        final ZipEntry e = (ZipEntry) en.nextElement();
+        futures.add(executor.submit(new Callable<Void>() {
+          public Void call() throws IOException {
+            synchronized (stopped) {
+              if (stopped[0]) {
+                return null;
+              }
+            }
+            InputStream is = zf.getInputStream(e);
+            try {
+              action.process(is, e);
+            }
+            catch (IOException ze) {
+              throw new ZipException("Failed to process zip entry '" + e.getName() + "' with action " + action, ze);
+            }
+            catch (ZipBreakException ex) {
+              synchronized (stopped) {
+                stopped[0] = true;
+              }
+            }
+            finally {
+              IOUtils.closeQuietly(is);
+            }
+            return null;
+          }
+        }));
+      }
+
+      RuntimeException failure = null;
+      for (Future<Void> future : futures) {
+        try {
+          future.get();
+        }
+        catch (ExecutionException ee) {
+          if (failure == null) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) {
+              failure = ZipExceptionUtil.rethrow((IOException) cause);
+            }
+            else if (cause instanceof RuntimeException) {
+              failure = (RuntimeException) cause;
+            }
+            else {
+              failure = new ZipException("Failed to process zip entries with action " + action, cause);
+            }
+            synchronized (stopped) {
+              stopped[0] = true;
+            }
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+    catch (InterruptedException ie) {
+      for (Future<Void> future : futures) {
+        future.cancel(true);
+      }
+      Thread.currentThread().interrupt();
+      throw new ZipException("Interrupted while processing zip entries with action " + action);
+    }
+  }
+
   /**
    * Reads the given ZIP file and executes the given action for each given entry.
    * <p>
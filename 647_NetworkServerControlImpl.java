@@ -308,7 +308,7 @@ public final class NetworkServerControlImpl {
     private DataOutputStream commandOs = new DataOutputStream(byteArrayOs);
     
     private Object shutdownSync = new Object();
-    private boolean shutdown;
+    private volatile boolean shutdown;
     private int connNum;        // number of connections since server started
     private ServerSocket serverSocket;
     private NetworkServerControlImpl serverInstance;
@@ -326,12 +326,10 @@ public final class NetworkServerControlImpl {
     // DRDAConnThreads
     private Vector<DRDAConnThread> threadList = new Vector<DRDAConnThread>();
 
-    // queue of sessions waiting for a free thread - the queue is managed
-    // in a simple first come, first serve manner - no priorities
-    private Vector<Session> runQueue = new Vector<Session>();
-
-    // number of DRDAConnThreads waiting for something to do
-    private int freeThreads;
+    // sessions waiting for a thread, and the DRDAConnThreads waiting for
+    // a session
+    private final SessionScheduler<Session> scheduler =
+            new SessionScheduler<Session>();
 
     // known application requesters
     private Hashtable<String, AppRequester> appRequesterTable =
@@ -962,9 +960,7 @@ public final class NetworkServerControlImpl {
             // Wake up those waiting on sessions, so
             // they can close down
             try{
-                synchronized (runQueue) {
-                    runQueue.notifyAll();
-                }
+                scheduler.shutdown();
             } catch (Exception exception) {
                 consolePrintAndIgnore("DRDA_UnexpectedException.S", exception, true);
             }
@@ -1070,13 +1066,11 @@ public final class NetworkServerControlImpl {
                     // we're restarting the server (probably after a shutdown
                     // exception), so we need to clean up first.
 
-                        // Close and remove sessions on runQueue.
-                        synchronized (runQueue) {
-                            for (Session s : runQueue) {
-                                s.close();
-                                removeFromSessionTable(s.getConnNum());
-                            }
-                            runQueue.clear();
+                        // Close and remove sessions on the run queues.
+                        for (Session s = scheduler.poll(); s != null;
+                             s = scheduler.poll()) {
+                            s.close();
+                            removeFromSessionTable(s.getConnNum());
                         }
 
                         // DERBY-1326: There could be active threads that
@@ -1903,52 +1897,16 @@ public final class NetworkServerControlImpl {
      * exceeded.   
      *
      * If there is a waiting session, pick it up and put currentSession 
-     * at the back of the queue if there is one.
+     * at the back of the local queue of the thread if there is one.
      * @param currentSession    session thread is currently working on
      *
      * @return  next session to work on, could be same as current session
      */
     protected Session getNextSession(Session currentSession)
     {
-        Session retval = null;
         if (shutdown == true)
-            return retval;
-        synchronized (runQueue)
-        {
-            try {
-                // nobody waiting - go on with current session
-                if (runQueue.size() == 0)
-                {
-                    // no current session - wait for some work
-                    if (currentSession == null)
-                    {
-                        while (runQueue.size() == 0)
-                        {
-                            // This thread has nothing to do now so 
-                            // we will add it to freeThreads
-                            freeThreads++;
-                            runQueue.wait();
-                            if (shutdown == true)
-                                return null;
-                            freeThreads--;
-                        }
-                    }
-                    else
-                        return currentSession;
-                }
-                retval = (Session) runQueue.get(0);
-                runQueue.remove(0);
-                if (currentSession != null)
-                    runQueueAdd(currentSession);
-            } catch (InterruptedException e) {
-            // If for whatever reason (ex. database shutdown) a waiting thread is
-            // interrupted while in this method, that thread is going to be
-            // closed down, so we need to decrement the number of threads
-            // that will be available for use.
-                freeThreads--;
-            }
-        }
-        return retval;
+            return null;
+        return scheduler.next(currentSession);
     }
     /**
      * Get the stored application requester or store if we haven't seen it yet
@@ -2425,11 +2383,7 @@ public final class NetworkServerControlImpl {
      */
     private void runQueueAdd(Session clientSession)
     {
-        synchronized(runQueue)
-        {
-            runQueue.add(clientSession);
-            runQueue.notify();
-        }
+        scheduler.add(clientSession);
     }
     /**
      * Go through the arguments and find the command and save the dash arguments
@@ -4112,16 +4066,12 @@ public final class NetworkServerControlImpl {
         sessionTable.put(connectionNumber, session);
 
         // Check whether there are enough free threads to service all the
-        // threads in the run queue in addition to the newly added session.
-        boolean enoughThreads;
-        synchronized (runQueue) {
-            enoughThreads = (runQueue.size() < freeThreads);
-        }
-        // No need to hold the synchronization on runQueue any longer than
-        // this. Since no other threads can make runQueue grow, and no other
-        // threads will reduce the number of free threads without removing
-        // sessions from runQueue, (runQueue.size() < freeThreads) cannot go
-        // from true to false until addSession() returns.
+        // waiting sessions in addition to the newly added session. A thread
+        // stops being free before the session it takes stops waiting, and a
+        // thread giving up its session at the end of a time slice takes
+        // another one, so this cannot go from true to false until
+        // addSession() returns.
+        boolean enoughThreads = scheduler.hasEnoughThreads();
 
         DRDAConnThread thread = null;
 
@@ -4156,6 +4106,8 @@ public final class NetworkServerControlImpl {
      */
     void removeThread(DRDAConnThread thread) {
         threadList.remove(thread);
+        // hand the sessions waiting for this thread over to the others
+        scheduler.removeWorker(thread);
     }
     
     protected Object getShutdownSync() { return shutdownSync; } 
@@ -4178,7 +4130,7 @@ public final class NetworkServerControlImpl {
             }
         }
         int waitingSessions = 0;
-        for (Session session : runQueue)
+        for (Session session : scheduler.getQueuedSessions())
         {
                 s += session.buildRuntimeInfo("", locallangUtil);
                 waitingSessions ++;
@@ -4190,6 +4142,10 @@ public final class NetworkServerControlImpl {
             sessionCount  +"\n";
         s +=locallangUtil.getTextMessage("DRDA_RuntimeInfoNumWaitingSessions.I") +
             + waitingSessions + "\n\n";
+        s += locallangUtil.getTextMessage("DRDA_RuntimeInfoSessionWaitTime.I") +
+            scheduler.getWaitTime() + "\n";
+        s += locallangUtil.getTextMessage("DRDA_RuntimeInfoSessionServiceTime.I") +
+            scheduler.getServiceTime() + "\n\n";
 
         Runtime rt = Runtime.getRuntime();
         rt.gc();
@@ -4230,7 +4186,7 @@ public final class NetworkServerControlImpl {
     }
 
     int getRunQueueSize() {
-        return runQueue.size();
+        return scheduler.getQueuedCount();
     }
     
     int getThreadListSize() {
@@ -4310,5 +4266,4 @@ public final class NetworkServerControlImpl {
              }
              );
     }
-    
 }
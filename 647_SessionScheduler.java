@@ -0,0 +1,434 @@
+/*
+
+   Derby - Class org.apache.derby.impl.drda.SessionScheduler
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+
+package org.apache.derby.impl.drda;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hands the sessions of the Network Server to the threads serving them.
+ *
+ * <p>New sessions are put on a shared run queue. A thread which gives up its
+ * session at the end of a time slice puts it on its own local queue instead,
+ * so that each thread mostly rotates between the sessions it has already
+ * served. A thread without work takes the oldest session of the run queue,
+ * then of its own queue, then steals one from the queue of another thread.
+ * There are no priorities and no locks; threads waiting for work are parked,
+ * and each queued session wakes up at most one of them.</p>
+ *
+ * <p>The scheduler also records how long sessions wait for a thread and how
+ * long a thread works on a session before giving it up.</p>
+ *
+ * @param <S> the session type
+ */
+public final class SessionScheduler<S>
+{
+    // sessions added by addSession(), waiting for a thread
+    private final ConcurrentLinkedQueue<QueuedSession<S>> runQueue =
+            new ConcurrentLinkedQueue<QueuedSession<S>>();
+
+    // the local queues of the threads
+    private final ConcurrentHashMap<Thread, Worker<S>> workers =
+            new ConcurrentHashMap<Thread, Worker<S>>();
+
+    // number of sessions on the run queue and the local queues
+    private final AtomicInteger queuedSessions = new AtomicInteger();
+
+    // threads parked while waiting for something to do, the most recently
+    // parked first
+    private final ConcurrentLinkedDeque<Thread> idleThreads =
+            new ConcurrentLinkedDeque<Thread>();
+
+    // number of threads waiting for something to do
+    private final AtomicInteger freeThreads = new AtomicInteger();
+
+    private final Timer waitTime = new Timer();
+    private final Timer serviceTime = new Timer();
+
+    private volatile boolean shutdown;
+
+    /**
+     * Add a new session, waking up a thread waiting for work if there is one.
+     *
+     * @param session the session
+     */
+    public void add(S session)
+    {
+        queue(runQueue, session);
+    }
+
+    /**
+     * Get the next session for the calling thread to work on. If other
+     * sessions are waiting, the current session is put at the back of the
+     * local queue of the thread and the oldest waiting session is returned.
+     * Otherwise the current session is returned, or, if there is none, the
+     * thread waits until a session is added.
+     *
+     * @param currentSession session the thread is currently working on,
+     *        or null
+     * @return next session to work on, could be the same as the current
+     *         session; null if the scheduler has been shut down or the
+     *         thread has been interrupted while waiting
+     */
+    public S next(S currentSession)
+    {
+        if (shutdown)
+            return null;
+
+        Worker<S> worker = getWorker();
+        worker.serviceEnded(serviceTime);
+
+        QueuedSession<S> next;
+        if (currentSession != null)
+        {
+            // nobody waiting - go on with current session
+            if (queuedSessions.get() == 0 ||
+                    (next = poll(worker, false)) == null)
+            {
+                worker.serviceStarted();
+                return currentSession;
+            }
+            queue(worker.localQueue, currentSession);
+            return start(worker, next);
+        }
+
+        // no current session - wait for some work
+        Thread thread = Thread.currentThread();
+        freeThreads.incrementAndGet();
+        while ((next = poll(worker, true)) == null)
+        {
+            // Register before checking the queues again, so that a session
+            // queued in between unparks this thread
+            idleThreads.addFirst(thread);
+            next = poll(worker, true);
+            if (next != null)
+            {
+                if (!idleThreads.remove(thread))
+                    passWakeup();
+                break;
+            }
+
+            LockSupport.park(this);
+
+            boolean woken = !idleThreads.remove(thread);
+            // If for whatever reason (ex. database shutdown) a waiting
+            // thread is interrupted, that thread is going to be closed down
+            if (shutdown || Thread.interrupted())
+            {
+                freeThreads.decrementAndGet();
+                if (woken)
+                    passWakeup();
+                return null;
+            }
+        }
+        return start(worker, next);
+    }
+
+    /**
+     * Forget the local queue of a thread which has been closed, handing its
+     * sessions over to the other threads.
+     *
+     * @param thread the closed thread
+     */
+    public void removeWorker(Thread thread)
+    {
+        Worker<S> worker = workers.remove(thread);
+        if (worker != null)
+        {
+            for (QueuedSession<S> q = worker.localQueue.pollFirst();
+                 q != null; q = worker.localQueue.pollFirst())
+            {
+                queuedSessions.decrementAndGet();
+                queue(runQueue, q.session);
+            }
+        }
+    }
+
+    /**
+     * Remove a waiting session, if any, without recording its wait time.
+     *
+     * @return the oldest waiting session, or null
+     */
+    public S poll()
+    {
+        QueuedSession<S> q = poll(null, false);
+        return (q == null) ? null : q.session;
+    }
+
+    /**
+     * Check whether there are more threads waiting for work than waiting
+     * sessions. A thread stops counting as free before the session it takes
+     * stops counting as waiting, so the answer can only be too pessimistic.
+     *
+     * @return true if a session added now will be picked up by a free thread
+     */
+    public boolean hasEnoughThreads()
+    {
+        int queued = queuedSessions.get();
+        return queued < freeThreads.get();
+    }
+
+    /**
+     * Wake up all the threads waiting for work; they return null from
+     * {@link #next}, as will all later calls.
+     */
+    public void shutdown()
+    {
+        shutdown = true;
+        for (Thread idleThread : idleThreads)
+        {
+            LockSupport.unpark(idleThread);
+        }
+    }
+
+    /**
+     * @return the sessions waiting for a thread
+     */
+    public List<S> getQueuedSessions()
+    {
+        List<S> result = new ArrayList<S>();
+        for (QueuedSession<S> q : runQueue)
+        {
+            result.add(q.session);
+        }
+        for (Worker<S> worker : workers.values())
+        {
+            for (QueuedSession<S> q : worker.localQueue)
+            {
+                result.add(q.session);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of sessions waiting for a thread
+     */
+    public int getQueuedCount()
+    {
+        return queuedSessions.get();
+    }
+
+    /**
+     * @return the number of threads waiting for work
+     */
+    public int getFreeThreadCount()
+    {
+        return freeThreads.get();
+    }
+
+    /**
+     * @return the time sessions have waited for a thread
+     */
+    public Timer getWaitTime()
+    {
+        return waitTime;
+    }
+
+    /**
+     * @return the time threads have worked on a session before giving it up
+     */
+    public Timer getServiceTime()
+    {
+        return serviceTime;
+    }
+
+    /**
+     * Get the local queue of the calling thread, creating it on first use.
+     */
+    private Worker<S> getWorker()
+    {
+        Thread thread = Thread.currentThread();
+        Worker<S> worker = workers.get(thread);
+        if (worker == null)
+        {
+            worker = new Worker<S>();
+            workers.put(thread, worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Take the oldest waiting session, looking at the run queue, the local
+     * queue of the calling thread and the local queues of the other threads
+     * in that order.
+     *
+     * @param worker the local queue of the calling thread, or null
+     * @param free whether the calling thread counts as a free thread, which
+     *        it stops doing before the session stops counting as waiting
+     * @return the session, or null if no session is waiting
+     */
+    private QueuedSession<S> poll(Worker<S> worker, boolean free)
+    {
+        QueuedSession<S> next = runQueue.poll();
+        if (next == null && worker != null)
+            next = worker.localQueue.pollFirst();
+        if (next == null)
+        {
+            for (Worker<S> other : workers.values())
+            {
+                if (other != worker &&
+                        (next = other.localQueue.pollFirst()) != null)
+                    break;
+            }
+        }
+        if (next != null)
+        {
+            if (free)
+                freeThreads.decrementAndGet();
+            queuedSessions.decrementAndGet();
+        }
+        return next;
+    }
+
+    /**
+     * Put a session on a queue and wake up a thread waiting for work, if
+     * any.
+     */
+    private void queue(Queue<QueuedSession<S>> queue, S session)
+    {
+        queuedSessions.incrementAndGet();
+        queue.offer(new QueuedSession<S>(session));
+        wakeup();
+    }
+
+    /**
+     * A wakeup meant for the calling thread was not needed; hand it over to
+     * another waiting thread if sessions are still waiting.
+     */
+    private void passWakeup()
+    {
+        if (queuedSessions.get() > 0)
+            wakeup();
+    }
+
+    private void wakeup()
+    {
+        Thread idleThread = idleThreads.pollFirst();
+        if (idleThread != null)
+            LockSupport.unpark(idleThread);
+    }
+
+    private S start(Worker<S> worker, QueuedSession<S> next)
+    {
+        waitTime.record(System.nanoTime() - next.queuedAt);
+        worker.serviceStarted();
+        return next.session;
+    }
+
+    /**
+     * A session waiting for a thread, with the time it started waiting.
+     */
+    private static final class QueuedSession<S>
+    {
+        final S session;
+        final long queuedAt = System.nanoTime();
+
+        QueuedSession(S session)
+        {
+            this.session = session;
+        }
+    }
+
+    /**
+     * The local queue of a thread, and the time it started working on its
+     * current session. Only the queue is accessed by other threads.
+     */
+    private static final class Worker<S>
+    {
+        final ConcurrentLinkedDeque<QueuedSession<S>> localQueue =
+                new ConcurrentLinkedDeque<QueuedSession<S>>();
+        private long serviceStart;
+
+        void serviceStarted()
+        {
+            serviceStart = System.nanoTime();
+        }
+
+        void serviceEnded(Timer serviceTime)
+        {
+            if (serviceStart != 0)
+            {
+                serviceTime.record(System.nanoTime() - serviceStart);
+                serviceStart = 0;
+            }
+        }
+    }
+
+    /**
+     * Count, average and maximum of a duration.
+     */
+    public static final class Timer
+    {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos)
+        {
+            count.incrementAndGet();
+            total.addAndGet(nanos);
+            long m = max.get();
+            while (nanos > m && !max.compareAndSet(m, nanos))
+                m = max.get();
+        }
+
+        /**
+         * @return the number of recorded durations
+         */
+        public long getCount()
+        {
+            return count.get();
+        }
+
+        /**
+         * @return the average duration in milliseconds
+         */
+        public long getAverageMillis()
+        {
+            long n = count.get();
+            return (n == 0) ? 0 : TimeUnit.NANOSECONDS.toMillis(total.get() / n);
+        }
+
+        /**
+         * @return the longest duration in milliseconds
+         */
+        public long getMaxMillis()
+        {
+            return TimeUnit.NANOSECONDS.toMillis(max.get());
+        }
+
+        public String toString()
+        {
+            return getCount() + " / " + getAverageMillis() + " ms / " +
+                getMaxMillis() + " ms";
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/*
+
+   Derby - Class org.apache.derbyTesting.functionTests.tests.derbynet.SessionSchedulerTest
+
+   Licensed to the Apache Software Foundation (ASF) under one or more
+   contributor license agreements.  See the NOTICE file distributed with
+   this work for additional information regarding copyright ownership.
+   The ASF licenses this file to You under the Apache License, Version 2.0
+   (the "License"); you may not use this file except in compliance with
+   the License.  You may obtain a copy of the License at
+
+      http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+
+ */
+
+package org.apache.derbyTesting.functionTests.tests.derbynet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import junit.framework.Test;
+import org.apache.derby.impl.drda.SessionScheduler;
+import org.apache.derbyTesting.junit.BaseTestCase;
+import org.apache.derbyTesting.junit.BaseTestSuite;
+
+/**
+ * Tests the queueing and parking of the threads of the Network Server by
+ * {@link SessionScheduler}, without a running server.
+ */
+public class SessionSchedulerTest extends BaseTestCase {
+
+    /** How long to wait for other threads, in milliseconds. */
+    private static final long TIMEOUT = 30000;
+
+    public SessionSchedulerTest(String name) {
+        super(name);
+    }
+
+    public static Test suite() {
+        return new BaseTestSuite(SessionSchedulerTest.class);
+    }
+
+    /**
+     * Sessions are handed out first come, first serve.
+     */
+    public void testFifo() {
+        SessionScheduler<String> scheduler = new SessionScheduler<String>();
+        scheduler.add("a");
+        scheduler.add("b");
+        scheduler.add("c");
+        assertEquals(3, scheduler.getQueuedCount());
+
+        assertEquals("a", scheduler.next(null));
+        assertEquals("b", scheduler.next(null));
+        assertEquals("c", scheduler.next(null));
+        assertEquals(0, scheduler.getQueuedCount());
+        assertEquals(0, scheduler.getFreeThreadCount());
+        assertEquals(3, scheduler.getWaitTime().getCount());
+    }
+
+    /**
+     * A thread keeps its session if nobody is waiting, and otherwise puts it
+     * on its local queue, from which another thread can steal it.
+     */
+    public void testTimeSliceAndSteal() throws Exception {
+        final SessionScheduler<String> scheduler =
+            new SessionScheduler<String>();
+        scheduler.add("a");
+        assertEquals("a", scheduler.next(null));
+        assertEquals("a", scheduler.next("a"));
+
+        scheduler.add("b");
+        assertEquals("b", scheduler.next("a"));
+        assertEquals(1, scheduler.getQueuedCount());
+        assertEquals(Collections.singletonList("a"),
+                     scheduler.getQueuedSessions());
+
+        final String[] stolen = new String[1];
+        Thread thief = new Thread() {
+            public void run() {
+                stolen[0] = scheduler.next(null);
+            }
+        };
+        thief.start();
+        thief.join(TIMEOUT);
+        assertFalse(thief.isAlive());
+        assertEquals("a", stolen[0]);
+        assertEquals(0, scheduler.getQueuedCount());
+        assertTrue(scheduler.getServiceTime().getCount() >= 2);
+    }
+
+    /**
+     * The sessions on the local queue of a removed thread are handed over to
+     * the other threads.
+     */
+    public void testRemoveWorker() throws Exception {
+        final SessionScheduler<String> scheduler =
+            new SessionScheduler<String>();
+        final Thread[] worker = new Thread[1];
+        Thread t = new Thread() {
+            public void run() {
+                worker[0] = Thread.currentThread();
+                scheduler.add("a");
+                scheduler.add("b");
+                // takes a, then gives it up for b
+                scheduler.next(scheduler.next(null));
+            }
+        };
+        t.start();
+        t.join(TIMEOUT);
+        assertEquals(1, scheduler.getQueuedCount());
+
+        scheduler.removeWorker(worker[0]);
+        assertEquals(1, scheduler.getQueuedCount());
+        assertEquals("a", scheduler.poll());
+        assertNull(scheduler.poll());
+    }
+
+    /**
+     * A thread waiting for work is woken up by a new session.
+     */
+    public void testWakeup() throws Exception {
+        SessionScheduler<String> scheduler = new SessionScheduler<String>();
+        Waiter waiter = new Waiter(scheduler);
+        waiter.start();
+        awaitFreeThreads(scheduler, 1);
+        assertTrue(scheduler.hasEnoughThreads());
+
+        scheduler.add("a");
+        waiter.join(TIMEOUT);
+        assertFalse(waiter.isAlive());
+        assertEquals("a", waiter.session);
+        assertEquals(0, scheduler.getFreeThreadCount());
+        assertFalse(scheduler.hasEnoughThreads());
+    }
+
+    /**
+     * Threads waiting for work return null when the scheduler is shut down
+     * or when they are interrupted.
+     */
+    public void testShutdownAndInterrupt() throws Exception {
+        SessionScheduler<String> scheduler = new SessionScheduler<String>();
+        Waiter interrupted = new Waiter(scheduler);
+        interrupted.start();
+        awaitFreeThreads(scheduler, 1);
+        interrupted.interrupt();
+        interrupted.join(TIMEOUT);
+        assertFalse(interrupted.isAlive());
+        assertNull(interrupted.session);
+        assertEquals(0, scheduler.getFreeThreadCount());
+
+        Waiter first = new Waiter(scheduler);
+        Waiter second = new Waiter(scheduler);
+        first.start();
+        second.start();
+        awaitFreeThreads(scheduler, 2);
+        scheduler.shutdown();
+        first.join(TIMEOUT);
+        second.join(TIMEOUT);
+        assertFalse(first.isAlive());
+        assertFalse(second.isAlive());
+        assertNull(first.session);
+        assertNull(second.session);
+        assertNull(scheduler.next(null));
+    }
+
+    /**
+     * Every session added is eventually picked up, even when sessions are
+     * added while the waiting threads are registering and leaving, and
+     * a new thread is only started when there are not enough free threads
+     * and the maximum number of threads has not been reached, as the server
+     * does.
+     */
+    public void testNoLostWakeup() throws Exception {
+        final SessionScheduler<Integer> scheduler =
+            new SessionScheduler<Integer>();
+        final int sessions = 20000;
+        final AtomicInteger served = new AtomicInteger();
+        final List<Thread> threads =
+            Collections.synchronizedList(new ArrayList<Thread>());
+
+        for (int i = 0; i < 4; i++) {
+            startServer(scheduler, served, threads, null);
+        }
+
+        for (int i = 0; i < sessions; i++) {
+            if (scheduler.hasEnoughThreads() || threads.size() >= 32) {
+                scheduler.add(i);
+            } else {
+                startServer(scheduler, served, threads, i);
+            }
+            if (i % 64 == 0) {
+                Thread.yield();
+            }
+        }
+
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (served.get() < sessions &&
+               System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals("sessions stranded in the queues", sessions,
+                     served.get());
+        assertEquals(0, scheduler.getQueuedCount());
+
+        scheduler.shutdown();
+        for (Thread t : new ArrayList<Thread>(threads)) {
+            t.join(TIMEOUT);
+            assertFalse(t.isAlive());
+        }
+    }
+
+    /**
+     * Start a thread which serves sessions one after the other, like a
+     * DRDAConnThread with sessions that end within their time slice.
+     */
+    private static void startServer(final SessionScheduler<Integer> scheduler,
+                                    final AtomicInteger served,
+                                    List<Thread> threads,
+                                    final Integer first) {
+        Thread t = new Thread() {
+            public void run() {
+                Integer session = first;
+                if (session == null) {
+                    session = scheduler.next(null);
+                }
+                while (session != null) {
+                    served.incrementAndGet();
+                    session = scheduler.next(null);
+                }
+            }
+        };
+        threads.add(t);
+        t.start();
+    }
+
+    private static void awaitFreeThreads(SessionScheduler<?> scheduler,
+                                         int count) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (scheduler.getFreeThreadCount() < count) {
+            assertTrue("threads did not start waiting",
+                       System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * A thread waiting for one session.
+     */
+    private static class Waiter extends Thread {
+        private final SessionScheduler<String> scheduler;
+        volatile String session;
+
+        Waiter(SessionScheduler<String> scheduler) {
+            this.scheduler = scheduler;
+        }
+
+        public void run() {
+            session = scheduler.next(null);
+        }
+    }
+}
@@ -0,0 +1,473 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.AddRequest;
+import org.apache.directory.api.ldap.model.message.AddRequestImpl;
+import org.apache.directory.api.ldap.model.message.DeleteRequest;
+import org.apache.directory.api.ldap.model.message.DeleteRequestImpl;
+import org.apache.directory.api.ldap.model.message.ModifyRequest;
+import org.apache.directory.api.ldap.model.message.Request;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+
+/**
+ * Pipelines add, modify and delete requests over a single {@link LdapNetworkConnection}.
+ * <p>
+ * A request is sent as soon as it is submitted, without waiting for the response to the
+ * previous ones, as long as fewer than <i>window</i> requests are outstanding. Otherwise
+ * the submitting thread waits, at most for the connection timeout, until a response has
+ * been received. The result of each request is handed to a {@link ResultCallback}, which is
+ * called by the I/O thread of the connection and must therefore not block.
+ * <p>
+ * The operation also counts the requests, their results and the time between sending a
+ * request and receiving its response, which allows the throughput and latency of a bulk
+ * load to be monitored while it runs.
+ * <p>
+ * An operation is created with {@link LdapNetworkConnection#bulk(int, ResultCallback)}.
+ * Its submitting methods may be called by several threads.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapBulkOperation
+{
+    /** logger for reporting errors that might not be handled properly upstream */
+    private static final Logger LOG = LoggerFactory.getLogger( LdapBulkOperation.class );
+
+    /** The connection the requests are sent on */
+    private final LdapNetworkConnection connection;
+
+    /** The maximum number of outstanding requests */
+    private final int windowSize;
+
+    /** One permit per request which may be sent */
+    private final Semaphore window;
+
+    /** The time a submitting thread waits for a free slot in the window, in ms */
+    private final long timeout;
+
+    /** The callback receiving the results */
+    private final ResultCallback callback;
+
+    /** The time the operation has been created, in ns */
+    private final long startTime = System.nanoTime();
+
+    /** The number of requests sent */
+    private final AtomicLong sentCount = new AtomicLong();
+
+    /** The number of requests that have been successful */
+    private final AtomicLong successCount = new AtomicLong();
+
+    /** The number of requests that have returned an error or could not be completed */
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /** The sum of the latencies of all the completed requests, in ns */
+    private final AtomicLong totalLatency = new AtomicLong();
+
+    /** The largest latency of a completed request, in ns */
+    private final AtomicLong maxLatency = new AtomicLong();
+
+    /**
+     * Receives the result of each request of a {@link LdapBulkOperation}.
+     */
+    public interface ResultCallback
+    {
+        /**
+         * Called when the response to a request has been received, whatever its result code.
+         *
+         * @param request The request
+         * @param response The response
+         */
+        void resultReceived( Request request, ResultResponse response );
+
+
+        /**
+         * Called when no response will be received for a request, because it could not be
+         * written or the connection has been closed.
+         *
+         * @param request The request
+         * @param cause The reason of the failure
+         */
+        void requestFailed( Request request, Exception cause );
+    }
+
+
+    /**
+     * Creates a new LdapBulkOperation instance
+     *
+     * @param connection The connection to send the requests on
+     * @param windowSize The maximum number of outstanding requests
+     * @param timeout The time to wait for a free slot in the window, in ms
+     * @param callback The callback receiving the results
+     */
+    LdapBulkOperation( LdapNetworkConnection connection, int windowSize, long timeout, ResultCallback callback )
+    {
+        if ( windowSize <= 0 )
+        {
+            throw new IllegalArgumentException( "The window size must be positive" );
+        }
+
+        if ( callback == null )
+        {
+            throw new IllegalArgumentException( "Cannot process without a result callback" );
+        }
+
+        this.connection = connection;
+        this.windowSize = windowSize;
+        this.window = new Semaphore( windowSize );
+        this.timeout = timeout;
+        this.callback = callback;
+    }
+
+
+    /**
+     * Sends a request to add an entry.
+     *
+     * @param entry The entry to add
+     * @return The message ID of the request
+     * @throws LdapException if the request could not be sent
+     */
+    public int add( Entry entry ) throws LdapException
+    {
+        if ( entry == null )
+        {
+            throw new IllegalArgumentException( "Cannot add a null entry" );
+        }
+
+        AddRequest addRequest = new AddRequestImpl();
+        addRequest.setEntry( entry );
+
+        return add( addRequest );
+    }
+
+
+    /**
+     * Sends an add request.
+     *
+     * @param addRequest The request
+     * @return The message ID of the request
+     * @throws LdapException if the request could not be sent
+     */
+    public int add( AddRequest addRequest ) throws LdapException
+    {
+        if ( ( addRequest == null ) || ( addRequest.getEntry() == null ) )
+        {
+            throw new IllegalArgumentException( "Cannot process a null addRequest" );
+        }
+
+        return send( addRequest );
+    }
+
+
+    /**
+     * Sends a modify request.
+     *
+     * @param modRequest The request
+     * @return The message ID of the request
+     * @throws LdapException if the request could not be sent
+     */
+    public int modify( ModifyRequest modRequest ) throws LdapException
+    {
+        if ( modRequest == null )
+        {
+            throw new IllegalArgumentException( "Cannot process a null modifyRequest" );
+        }
+
+        return send( modRequest );
+    }
+
+
+    /**
+     * Sends a request to delete an entry.
+     *
+     * @param dn The DN of the entry to delete
+     * @return The message ID of the request
+     * @throws LdapException if the request could not be sent
+     */
+    public int delete( Dn dn ) throws LdapException
+    {
+        if ( dn == null )
+        {
+            throw new IllegalArgumentException( "Cannot delete a null Dn" );
+        }
+
+        DeleteRequest deleteRequest = new DeleteRequestImpl();
+        deleteRequest.setName( dn );
+
+        return delete( deleteRequest );
+    }
+
+
+    /**
+     * Sends a delete request.
+     *
+     * @param deleteRequest The request
+     * @return The message ID of the request
+     * @throws LdapException if the request could not be sent
+     */
+    public int delete( DeleteRequest deleteRequest ) throws LdapException
+    {
+        if ( deleteRequest == null )
+        {
+            throw new IllegalArgumentException( "Cannot process a null deleteRequest" );
+        }
+
+        return send( deleteRequest );
+    }
+
+
+    /**
+     * Waits until all the requests sent so far have been completed.
+     *
+     * @param timeout The maximum time to wait
+     * @param unit The unit of the timeout
+     * @return <code>true</code> if all the requests have been completed
+     * @throws InterruptedException if the current thread has been interrupted
+     */
+    public boolean await( long timeout, TimeUnit unit ) throws InterruptedException
+    {
+        if ( !window.tryAcquire( windowSize, timeout, unit ) )
+        {
+            return false;
+        }
+
+        window.release( windowSize );
+
+        return true;
+    }
+
+
+    /**
+     * @return The maximum number of outstanding requests
+     */
+    public int getWindowSize()
+    {
+        return windowSize;
+    }
+
+
+    /**
+     * @return The number of requests that have been sent
+     */
+    public long getSentCount()
+    {
+        return sentCount.get();
+    }
+
+
+    /**
+     * @return The number of requests that have been sent and are not completed yet
+     */
+    public int getOutstandingCount()
+    {
+        return windowSize - window.availablePermits();
+    }
+
+
+    /**
+     * @return The number of requests which have returned a SUCCESS result code
+     */
+    public long getSuccessCount()
+    {
+        return successCount.get();
+    }
+
+
+    /**
+     * @return The number of requests which have returned another result code, or for which
+     * no response will be received
+     */
+    public long getErrorCount()
+    {
+        return errorCount.get();
+    }
+
+
+    /**
+     * @return The number of requests completed per second since the creation of the operation
+     */
+    public double getThroughput()
+    {
+        long elapsed = System.nanoTime() - startTime;
+
+        if ( elapsed <= 0L )
+        {
+            return 0d;
+        }
+
+        return ( successCount.get() + errorCount.get() ) * 1000000000d / elapsed;
+    }
+
+
+    /**
+     * @param unit The unit of the result
+     * @return The average time between sending a request and receiving its response
+     */
+    public long getAverageLatency( TimeUnit unit )
+    {
+        long completed = successCount.get() + errorCount.get();
+
+        if ( completed == 0L )
+        {
+            return 0L;
+        }
+
+        return unit.convert( totalLatency.get() / completed, TimeUnit.NANOSECONDS );
+    }
+
+
+    /**
+     * @param unit The unit of the result
+     * @return The largest time between sending a request and receiving its response
+     */
+    public long getMaxLatency( TimeUnit unit )
+    {
+        return unit.convert( maxLatency.get(), TimeUnit.NANOSECONDS );
+    }
+
+
+    /**
+     * Waits for a free slot in the window and sends the request.
+     */
+    private int send( Request request ) throws LdapException
+    {
+        try
+        {
+            if ( !window.tryAcquire( timeout, TimeUnit.MILLISECONDS ) )
+            {
+                throw new LdapException( LdapNetworkConnection.TIME_OUT_ERROR );
+            }
+        }
+        catch ( InterruptedException ie )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new LdapException( LdapNetworkConnection.NO_RESPONSE_ERROR, ie );
+        }
+
+        // Counted first, as the response may be received before the write completes
+        sentCount.incrementAndGet();
+
+        try
+        {
+            connection.writeBulkRequest( new PendingRequest( request ) );
+        }
+        catch ( LdapException | RuntimeException e )
+        {
+            sentCount.decrementAndGet();
+            window.release();
+
+            throw e;
+        }
+
+        return request.getMessageId();
+    }
+
+
+    /**
+     * Records the completion of a request and frees its slot in the window.
+     */
+    private void completed( long sentTime, boolean success )
+    {
+        long latency = System.nanoTime() - sentTime;
+
+        totalLatency.addAndGet( latency );
+
+        long max = maxLatency.get();
+
+        while ( ( latency > max ) && !maxLatency.compareAndSet( max, latency ) )
+        {
+            max = maxLatency.get();
+        }
+
+        if ( success )
+        {
+            successCount.incrementAndGet();
+        }
+        else
+        {
+            errorCount.incrementAndGet();
+        }
+
+        window.release();
+    }
+
+    /**
+     * A request which has been sent and whose response has not been received yet. The
+     * connection completes it exactly once, when it removes it from its pending requests.
+     */
+    class PendingRequest
+    {
+        /** The request */
+        final Request request;
+
+        /** The time the request has been sent, in ns */
+        private final long sentTime = System.nanoTime();
+
+
+        PendingRequest( Request request )
+        {
+            this.request = request;
+        }
+
+
+        void resultReceived( ResultResponse response )
+        {
+            boolean success = response.getLdapResult().getResultCode() == ResultCodeEnum.SUCCESS;
+
+            completed( sentTime, success );
+
+            try
+            {
+                callback.resultReceived( request, response );
+            }
+            catch ( RuntimeException re )
+            {
+                LOG.warn( "The result callback failed for the message " + request.getMessageId(), re );
+            }
+        }
+
+
+        void requestFailed( Exception cause )
+        {
+            completed( sentTime, false );
+
+            try
+            {
+                callback.requestFailed( request, cause );
+            }
+            catch ( RuntimeException re )
+            {
+                LOG.warn( "The result callback failed for the message " + request.getMessageId(), re );
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.ldap.client.api;
+
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.DeleteResponse;
+import org.apache.directory.api.ldap.model.message.DeleteResponseImpl;
+import org.apache.directory.api.ldap.model.message.Request;
+import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.mina.core.future.WriteFuture;
+import org.apache.mina.core.session.DummySession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+
+/**
+ * Tests the {@link LdapBulkOperation} class, using a connection whose session is a
+ * {@link DummySession}. The responses are fed to the connection as if they had been
+ * decoded from the network.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdapBulkOperationTest
+{
+    private LdapNetworkConnection connection;
+
+    private TestSession session;
+
+    private final List<ResultResponse> results = new CopyOnWriteArrayList<>();
+
+    private final List<Request> failures = new CopyOnWriteArrayList<>();
+
+    private final LdapBulkOperation.ResultCallback callback = new LdapBulkOperation.ResultCallback()
+    {
+        @Override
+        public void resultReceived( Request request, ResultResponse response )
+        {
+            results.add( response );
+        }
+
+
+        @Override
+        public void requestFailed( Request request, Exception cause )
+        {
+            failures.add( request );
+        }
+    };
+
+
+    @Before
+    public void setup() throws Exception
+    {
+        connection = new LdapNetworkConnection();
+        connection.setTimeOut( 200L );
+        session = new TestSession();
+
+        // Pretend the connection is established
+        Field ldapSession = LdapNetworkConnection.class.getDeclaredField( "ldapSession" );
+        ldapSession.setAccessible( true );
+        ldapSession.set( connection, session );
+
+        Field connected = LdapNetworkConnection.class.getDeclaredField( "connected" );
+        connected.setAccessible( true );
+        ( ( AtomicBoolean ) connected.get( connection ) ).set( true );
+    }
+
+
+    @After
+    public void tearDown() throws Exception
+    {
+        connection.close();
+    }
+
+
+    @Test
+    public void testResultReceived() throws Exception
+    {
+        LdapBulkOperation bulk = connection.bulk( 10, callback );
+
+        int id1 = bulk.delete( new Dn( "cn=test1" ) );
+        int id2 = bulk.delete( new Dn( "cn=test2" ) );
+
+        assertEquals( 2, bulk.getSentCount() );
+        assertEquals( 2, bulk.getOutstandingCount() );
+
+        connection.messageReceived( session, response( id2, ResultCodeEnum.NO_SUCH_OBJECT ) );
+        connection.messageReceived( session, response( id1, ResultCodeEnum.SUCCESS ) );
+
+        assertEquals( 2, results.size() );
+        assertEquals( id2, results.get( 0 ).getMessageId() );
+        assertEquals( id1, results.get( 1 ).getMessageId() );
+        assertEquals( 1, bulk.getSuccessCount() );
+        assertEquals( 1, bulk.getErrorCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+        assertTrue( bulk.await( 0, TimeUnit.MILLISECONDS ) );
+    }
+
+
+    @Test
+    public void testWindowLimit() throws Exception
+    {
+        LdapBulkOperation bulk = connection.bulk( 2, callback );
+
+        int id1 = bulk.delete( new Dn( "cn=test1" ) );
+        bulk.delete( new Dn( "cn=test2" ) );
+
+        assertEquals( 2, bulk.getOutstandingCount() );
+        assertFalse( bulk.await( 0, TimeUnit.MILLISECONDS ) );
+
+        try
+        {
+            bulk.delete( new Dn( "cn=test3" ) );
+            fail( "The window is full" );
+        }
+        catch ( LdapException le )
+        {
+            assertEquals( LdapNetworkConnection.TIME_OUT_ERROR, le.getMessage() );
+        }
+
+        assertEquals( 2, bulk.getSentCount() );
+        assertEquals( 2, session.getWrittenCount() );
+
+        // A response frees a slot
+        connection.messageReceived( session, response( id1, ResultCodeEnum.SUCCESS ) );
+        bulk.delete( new Dn( "cn=test3" ) );
+
+        assertEquals( 3, bulk.getSentCount() );
+        assertEquals( 2, bulk.getOutstandingCount() );
+    }
+
+
+    @Test
+    public void testCallbackException() throws Exception
+    {
+        LdapBulkOperation bulk = connection.bulk( 1, new LdapBulkOperation.ResultCallback()
+        {
+            @Override
+            public void resultReceived( Request request, ResultResponse response )
+            {
+                throw new IllegalStateException( "Failing callback" );
+            }
+
+
+            @Override
+            public void requestFailed( Request request, Exception cause )
+            {
+                throw new IllegalStateException( "Failing callback" );
+            }
+        } );
+
+        int id = bulk.delete( new Dn( "cn=test1" ) );
+
+        // The I/O thread is not affected and the slot is freed
+        connection.messageReceived( session, response( id, ResultCodeEnum.SUCCESS ) );
+
+        assertEquals( 1, bulk.getSuccessCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+
+        bulk.delete( new Dn( "cn=test2" ) );
+        connection.sessionClosed( session );
+
+        assertEquals( 1, bulk.getErrorCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+    }
+
+
+    @Test
+    public void testFailOnClose() throws Exception
+    {
+        LdapBulkOperation bulk = connection.bulk( 10, callback );
+
+        int id1 = bulk.delete( new Dn( "cn=test1" ) );
+        bulk.delete( new Dn( "cn=test2" ) );
+        bulk.delete( new Dn( "cn=test3" ) );
+
+        connection.messageReceived( session, response( id1, ResultCodeEnum.SUCCESS ) );
+        connection.sessionClosed( session );
+
+        assertEquals( 1, results.size() );
+        assertEquals( 2, failures.size() );
+        assertEquals( 1, bulk.getSuccessCount() );
+        assertEquals( 2, bulk.getErrorCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+        assertTrue( bulk.await( 0, TimeUnit.MILLISECONDS ) );
+    }
+
+
+    @Test
+    public void testWriteException() throws Exception
+    {
+        LdapBulkOperation bulk = connection.bulk( 2, callback );
+        IllegalStateException writeFailure = new IllegalStateException( "Failing write" );
+        session.writeFailure = writeFailure;
+
+        try
+        {
+            bulk.delete( new Dn( "cn=test1" ) );
+            fail( "The write fails" );
+        }
+        catch ( IllegalStateException ise )
+        {
+            assertSame( writeFailure, ise );
+        }
+
+        assertEquals( 0, bulk.getSentCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+
+        // The request is not pending anymore, so it is not completed again
+        connection.sessionClosed( session );
+
+        assertEquals( 0, failures.size() );
+        assertEquals( 0, bulk.getErrorCount() );
+        assertEquals( 0, bulk.getOutstandingCount() );
+    }
+
+
+    private static DeleteResponse response( int messageId, ResultCodeEnum resultCode )
+    {
+        DeleteResponse response = new DeleteResponseImpl( messageId );
+        response.getLdapResult().setResultCode( resultCode );
+
+        return response;
+    }
+
+    /**
+     * A session which counts the written messages and can be made to fail writing them.
+     */
+    private static class TestSession extends DummySession
+    {
+        private volatile RuntimeException writeFailure;
+
+        private int writtenCount;
+
+
+        @Override
+        public WriteFuture write( Object message )
+        {
+            if ( writeFailure != null )
+            {
+                throw writeFailure;
+            }
+
+            writtenCount++;
+
+            return super.write( message );
+        }
+
+
+        int getWrittenCount()
+        {
+            return writtenCount;
+        }
+    }
+}
@@ -114,6 +114,7 @@ import org.apache.directory.api.ldap.model.message.ModifyResponse;
 import org.apache.directory.api.ldap.model.message.Request;
 import org.apache.directory.api.ldap.model.message.Response;
 import org.apache.directory.api.ldap.model.message.ResultCodeEnum;
+import org.apache.directory.api.ldap.model.message.ResultResponse;
 import org.apache.directory.api.ldap.model.message.SearchRequest;
 import org.apache.directory.api.ldap.model.message.SearchRequestImpl;
 import org.apache.directory.api.ldap.model.message.SearchResultDone;
@@ -213,6 +214,9 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     /** a map to hold the ResponseFutures for all operations */
     private Map<Integer, ResponseFuture<? extends Response>> futureMap = new ConcurrentHashMap<>();
 
+    /** a map to hold the requests sent by bulk operations, which have no ResponseFuture */
+    private Map<Integer, LdapBulkOperation.PendingRequest> bulkRequestMap = new ConcurrentHashMap<>();
+
     /** list of controls supported by the server */
     private List<String> supportedControls;
 
@@ -856,6 +860,8 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
                 }
 
                 futureMap.clear();
+
+                failBulkRequests();
             }
         } );
 
@@ -2462,6 +2468,19 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
         
         int messageId = response.getMessageId();
 
+        // The requests sent by bulk operations are completed directly
+        if ( ( response instanceof ResultResponse ) && !bulkRequestMap.isEmpty() )
+        {
+            LdapBulkOperation.PendingRequest pendingRequest = bulkRequestMap.remove( messageId );
+
+            if ( pendingRequest != null )
+            {
+                pendingRequest.resultReceived( ( ResultResponse ) response );
+
+                return;
+            }
+        }
+
         // this check is necessary to prevent adding an abandoned operation's
         // result(s) to corresponding queue
         ResponseFuture<? extends Response> responseFuture = peekFromFutureMap( messageId );
@@ -4462,6 +4481,28 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     private void clearMaps()
     {
         futureMap.clear();
+
+        failBulkRequests();
+    }
+
+
+    /**
+     * Completes the requests sent by bulk operations which will never get a response.
+     */
+    private void failBulkRequests()
+    {
+        Iterator<Integer> messageIds = bulkRequestMap.keySet().iterator();
+
+        while ( messageIds.hasNext() )
+        {
+            LdapBulkOperation.PendingRequest pendingRequest = bulkRequestMap.remove( messageIds.next() );
+
+            if ( pendingRequest != null )
+            {
+                pendingRequest.requestFailed( new InvalidConnectionException(
+                    "The connection has been closed before the response was received" ) );
+            }
+        }
     }
 
 
@@ -4906,6 +4947,89 @@ public class LdapNetworkConnection extends AbstractLdapConnection implements Lda
     }
 
 
+    /**
+     * Creates an operation pipelining add, modify and delete requests over this connection.
+     * Up to <i>window</i> requests are sent without waiting for their responses, which are
+     * handed to the callback as they are received.
+     *
+     * @param window The maximum number of outstanding requests
+     * @param callback The callback receiving the results, called by the I/O thread
+     * @return The bulk operation
+     */
+    public LdapBulkOperation bulk( int window, LdapBulkOperation.ResultCallback callback )
+    {
+        return new LdapBulkOperation( this, window, timeout, callback );
+    }
+
+
+    /**
+     * Sends a request of a bulk operation. Unlike {@link #writeRequest(Request)}, this does
+     * not wait until the request has been written, a write failure completes the request.
+     * If this method throws, the request has not been completed and is no longer pending.
+     *
+     * @param pendingRequest The request to send
+     * @throws LdapException If the connection is not usable
+     */
+    void writeBulkRequest( final LdapBulkOperation.PendingRequest pendingRequest ) throws LdapException
+    {
+        // try to connect, if we aren't already connected.
+        connect();
+
+        checkSession();
+
+        if ( config.isUseSsl() && !ldapSession.getFilterChain().contains( SSL_FILTER_KEY ) )
+        {
+            throw new InvalidConnectionException( "Attempting to send over an insecure connection" );
+        }
+
+        final int newId = messageId.incrementAndGet();
+
+        pendingRequest.request.setMessageId( newId );
+        bulkRequestMap.put( newId, pendingRequest );
+
+        // Send the request to the server
+        WriteFuture writeFuture;
+
+        try
+        {
+            writeFuture = ldapSession.write( pendingRequest.request );
+        }
+        catch ( RuntimeException re )
+        {
+            if ( bulkRequestMap.remove( newId ) == null )
+            {
+                // The request has already been completed, by a close of the connection
+                return;
+            }
+
+            // The caller frees the slot of the request
+            throw re;
+        }
+
+        writeFuture.addListener( new IoFutureListener<WriteFuture>()
+        {
+            @Override
+            public void operationComplete( WriteFuture future )
+            {
+                if ( !future.isWritten() && ( bulkRequestMap.remove( newId ) != null ) )
+                {
+                    Throwable cause = future.getException();
+
+                    if ( cause instanceof Exception )
+                    {
+                        pendingRequest.requestFailed( ( Exception ) cause );
+                    }
+                    else
+                    {
+                        pendingRequest.requestFailed( new InvalidConnectionException(
+                            "Error while sending some message : the session has been closed" ) );
+                    }
+                }
+            }
+        } );
+    }
+
+
     /**
      * a reusable code block to be used in various bind methods
      */
@@ -257,6 +257,44 @@ public class GridTcpRestParser implements GridNioParser {
         ByteArrayOutputStream tmp = state.buffer();
         int i = state.index();
 
+        if (i == 0 && buf.remaining() >= HDR_LEN) {
+            // Whole header is available, decode it in place.
+            int pos = buf.position();
+
+            req.requestFlag(buf.get(pos));
+            req.operationCode(buf.get(pos + 1));
+            req.keyLength((short)getBigEndian(buf, pos + 2, 2));
+            req.extrasLength(buf.get(pos + 4));
+            req.totalLength(getBigEndian(buf, pos + 8, 4));
+
+            byte[] opaque = new byte[4];
+
+            buf.position(pos + 12);
+            buf.get(opaque);
+            buf.position(pos + HDR_LEN);
+
+            req.opaque(opaque);
+
+            i = HDR_LEN;
+
+            int valLen = req.totalLength() - req.extrasLength() - req.keyLength();
+
+            if (req.extrasLength() >= 0 && req.keyLength() >= 0 && valLen >= 0 &&
+                buf.remaining() >= req.totalLength()) {
+                // Whole body is available as well, read each part straight into its own array.
+                if (req.extrasLength() > 0)
+                    req.extras(read(buf, req.extrasLength()));
+
+                if (req.keyLength() > 0)
+                    req.key(read(buf, req.keyLength()));
+
+                if (valLen > 0)
+                    req.value(read(buf, valLen));
+
+                return assemble(ses, req);
+            }
+        }
+
         while (buf.remaining() > 0) {
             byte b = buf.get();
 
@@ -335,6 +373,37 @@ public class GridTcpRestParser implements GridNioParser {
         return null;
     }
 
+    /**
+     * Reads big-endian integer value of the given length without changing the buffer position.
+     * Does not rely on the byte order of the buffer, which may be configured by the NIO server.
+     *
+     * @param buf Buffer.
+     * @param pos Absolute position of the first byte.
+     * @param len Number of bytes, up to 4.
+     * @return Value.
+     */
+    private static int getBigEndian(ByteBuffer buf, int pos, int len) {
+        int res = 0;
+
+        for (int i = 0; i < len; i++)
+            res = (res << 8) | (buf.get(pos + i) & 0xFF);
+
+        return res;
+    }
+
+    /**
+     * @param buf Buffer.
+     * @param len Number of bytes to read.
+     * @return Bytes read.
+     */
+    private static byte[] read(ByteBuffer buf, int len) {
+        byte[] bytes = new byte[len];
+
+        buf.get(bytes);
+
+        return bytes;
+    }
+
     /**
      * Parses a client handshake, checking a client version and
      * reading the marshaller protocol ID.
@@ -420,6 +489,12 @@ public class GridTcpRestParser implements GridNioParser {
                             ", len=" + len + ']');
 
                     state.index(len);
+
+                    // Body length is known, so size the buffer once rather than let it grow by doubling.
+                    state.presizeBuffer(len - 40);
+
+                    // The buffer may have been replaced.
+                    tmp = state.buffer();
                 }
             }
 
@@ -439,18 +514,13 @@ public class GridTcpRestParser implements GridNioParser {
                 final int packetSize = len - 40;
 
                 if (tmp.size() + buf.remaining() >= packetSize) {
-                    if (buf.remaining() > 0) {
-                        byte[] bodyBytes = new byte[packetSize - tmp.size()];
-
-                        buf.get(bodyBytes);
-
-                        tmp.write(bodyBytes);
-                    }
+                    if (buf.remaining() > 0)
+                        copy(buf, tmp, packetSize - tmp.size());
 
                     return parseClientMessage(ses, state);
                 }
                 else
-                    copyRemaining(buf, tmp);
+                    copy(buf, tmp, buf.remaining());
             }
         }
 
@@ -491,25 +561,36 @@ public class GridTcpRestParser implements GridNioParser {
             return bytes;
         }
         else {
-            copyRemaining(buf, intBuf);
+            copy(buf, intBuf, buf.remaining());
 
             return null;
         }
     }
 
     /**
-     * Copies remaining bytes from byte buffer to output stream.
+     * Copies bytes from byte buffer to output stream. Heap buffers are written
+     * from their backing array without an intermediate copy.
      *
      * @param src Source buffer.
      * @param dest Destination stream.
+     * @param len Number of bytes to copy.
      * @throws IOException If IO error occurs.
      */
-    private void copyRemaining(ByteBuffer src, OutputStream dest) throws IOException {
-        byte[] b = new byte[src.remaining()];
+    private void copy(ByteBuffer src, OutputStream dest, int len) throws IOException {
+        assert len <= src.remaining();
 
-        src.get(b);
+        if (src.hasArray()) {
+            dest.write(src.array(), src.arrayOffset() + src.position(), len);
 
-        dest.write(b);
+            src.position(src.position() + len);
+        }
+        else {
+            byte[] b = new byte[len];
+
+            src.get(b);
+
+            dest.write(b);
+        }
     }
 
     /**
@@ -850,6 +931,9 @@ public class GridTcpRestParser implements GridNioParser {
      * Holder for parser state and temporary buffer.
      */
     protected static class ParserState {
+        /** Maximum initial size of the temporary buffer. */
+        private static final int MAX_PRESIZE = 64 * 1024;
+
         /** Parser index. */
         private int idx;
 
@@ -886,6 +970,20 @@ public class GridTcpRestParser implements GridNioParser {
             return buf;
         }
 
+        /**
+         * Replaces the empty temporary buffer with one that can hold the given
+         * number of bytes without growing. The size comes from the remote side,
+         * so no more than {@link #MAX_PRESIZE} bytes are allocated up front.
+         *
+         * @param size Expected number of bytes.
+         */
+        public void presizeBuffer(int size) {
+            assert buf.size() == 0;
+
+            if (size > 32)
+                buf = new ByteArrayOutputStream(Math.min(size, MAX_PRESIZE));
+        }
+
         /**
          * @return Pending packet.
          */
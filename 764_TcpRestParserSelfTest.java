@@ -0,0 +1,381 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.ignite.internal.processors.rest.protocols.tcp;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.UUID;
+import org.apache.ignite.internal.processors.rest.client.message.GridClientMessage;
+import org.apache.ignite.internal.processors.rest.client.message.GridRouterResponse;
+import org.apache.ignite.internal.util.GridClientByteUtils;
+import org.apache.ignite.internal.util.nio.GridNioSession;
+import org.apache.ignite.internal.util.typedef.internal.U;
+import org.apache.ignite.testframework.junits.common.GridCommonAbstractTest;
+
+import static org.apache.ignite.internal.processors.rest.protocols.tcp.GridMemcachedMessage.HDR_LEN;
+import static org.apache.ignite.internal.processors.rest.protocols.tcp.GridMemcachedMessage.IGNITE_REQ_FLAG;
+import static org.apache.ignite.internal.processors.rest.protocols.tcp.GridMemcachedMessage.MEMCACHE_REQ_FLAG;
+
+/**
+ * Tests parsing of Ignite and memcache packets by {@link GridTcpRestParser}.
+ */
+public class TcpRestParserSelfTest extends GridCommonAbstractTest {
+    /** Memcache set operation. */
+    private static final byte MEMCACHE_SET = 0x01;
+
+    /** Memcache no-op operation. */
+    private static final byte MEMCACHE_NOOP = 0x0A;
+
+    /** UTF-8 charset. */
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Opaque value of memcache packets. */
+    private static final byte[] OPAQUE = {1, 2, 3, 4};
+
+    /**
+     * @throws Exception If failed.
+     */
+    public void testSmallPacket() throws Exception {
+        checkPacket(body(16), 1);
+        checkPacket(body(16), 7);
+    }
+
+    /**
+     * Body larger than 32 bytes, for which the parser buffer is presized.
+     *
+     * @throws Exception If failed.
+     */
+    public void testLargePacket() throws Exception {
+        checkPacket(body(1000), 1);
+        checkPacket(body(1000), 3);
+        checkPacket(body(1000), 17);
+        checkPacket(body(1000), 1045);
+    }
+
+    /**
+     * Body larger than the maximum presized buffer.
+     *
+     * @throws Exception If failed.
+     */
+    public void testHugePacket() throws Exception {
+        checkPacket(body(200 * 1024), 4096);
+    }
+
+    /**
+     * Whole memcache packet in one buffer, followed by the start of the next packet.
+     *
+     * @throws Exception If failed.
+     */
+    public void testMemcacheWholePacket() throws Exception {
+        byte[] packet = memcacheSetPacket("key", "value", "cache");
+
+        byte[] bytes = Arrays.copyOf(packet, packet.length + 3);
+
+        bytes[packet.length] = MEMCACHE_REQ_FLAG;
+
+        for (ByteBuffer buf : new ByteBuffer[] {ByteBuffer.wrap(bytes), direct(bytes)}) {
+            GridTcpRestParser parser = new GridTcpRestParser(false);
+
+            GridClientMessage msg = parser.decode(new MockNioSession(), buf);
+
+            checkMemcacheSet(msg, "key", "value", "cache");
+
+            // The next packet is left in the buffer.
+            assertEquals(packet.length, buf.position());
+        }
+    }
+
+    /**
+     * Memcache packet with a key longer than 255 bytes.
+     *
+     * @throws Exception If failed.
+     */
+    public void testMemcacheLongKey() throws Exception {
+        char[] key = new char[300];
+
+        Arrays.fill(key, 'k');
+
+        byte[] packet = memcacheSetPacket(new String(key), "value", null);
+
+        checkMemcacheSet(decodeMemcache(packet), new String(key), "value", null);
+        checkMemcacheSet(decodeMemcache(packet, HDR_LEN), new String(key), "value", null);
+        checkMemcacheSet(decodeMemcache(packet, 10), new String(key), "value", null);
+    }
+
+    /**
+     * Memcache header arrives before the body.
+     *
+     * @throws Exception If failed.
+     */
+    public void testMemcacheHeaderOnly() throws Exception {
+        byte[] packet = memcacheSetPacket("key", "value", "cache");
+
+        // Split just after the header.
+        checkMemcacheSet(decodeMemcache(packet, HDR_LEN), "key", "value", "cache");
+
+        // Split just after the first byte of the body.
+        checkMemcacheSet(decodeMemcache(packet, HDR_LEN + 1), "key", "value", "cache");
+
+        // Header and part of the body, then the rest of the body.
+        checkMemcacheSet(decodeMemcache(packet, HDR_LEN + 10), "key", "value", "cache");
+    }
+
+    /**
+     * Memcache header split in several buffers.
+     *
+     * @throws Exception If failed.
+     */
+    public void testMemcacheSplitHeader() throws Exception {
+        byte[] packet = memcacheSetPacket("key", "value", "cache");
+
+        checkMemcacheSet(decodeMemcache(packet, 1), "key", "value", "cache");
+        checkMemcacheSet(decodeMemcache(packet, 3, 12), "key", "value", "cache");
+        checkMemcacheSet(decodeMemcache(packet, HDR_LEN - 1), "key", "value", "cache");
+
+        int[] splits = new int[packet.length - 1];
+
+        for (int i = 0; i < splits.length; i++)
+            splits[i] = i + 1;
+
+        checkMemcacheSet(decodeMemcache(packet, splits), "key", "value", "cache");
+    }
+
+    /**
+     * Memcache packet without a body.
+     *
+     * @throws Exception If failed.
+     */
+    public void testMemcacheNoBody() throws Exception {
+        byte[] packet = memcachePacket(MEMCACHE_NOOP, null, null, null);
+
+        assertEquals(HDR_LEN, packet.length);
+
+        checkMemcacheNoop(decodeMemcache(packet));
+        checkMemcacheNoop(decodeMemcache(packet, 1));
+        checkMemcacheNoop(decodeMemcache(packet, HDR_LEN - 1));
+    }
+
+    /**
+     * Parses a memcache packet split at the given offsets.
+     *
+     * @param packet Packet.
+     * @param splits Offsets, in ascending order, at which the packet is split.
+     * @return Parsed message.
+     * @throws Exception If failed.
+     */
+    private GridClientMessage decodeMemcache(byte[] packet, int... splits) throws Exception {
+        GridTcpRestParser parser = new GridTcpRestParser(false);
+
+        GridNioSession ses = new MockNioSession();
+
+        GridClientMessage msg = null;
+
+        int off = 0;
+
+        for (int i = 0; i <= splits.length; i++) {
+            int end = i < splits.length ? splits[i] : packet.length;
+
+            assertNull("Message parsed before the last part [off=" + off + ']', msg);
+
+            ByteBuffer buf = ByteBuffer.wrap(Arrays.copyOfRange(packet, off, end));
+
+            msg = parser.decode(ses, buf);
+
+            assertEquals(0, buf.remaining());
+
+            off = end;
+        }
+
+        return msg;
+    }
+
+    /**
+     * @param msg Parsed message.
+     * @param key Expected key.
+     * @param val Expected value.
+     * @param cacheName Expected cache name.
+     */
+    private static void checkMemcacheSet(GridClientMessage msg, String key, String val, String cacheName) {
+        assertTrue(msg instanceof GridMemcachedMessage);
+
+        GridMemcachedMessage req = (GridMemcachedMessage)msg;
+
+        assertEquals(MEMCACHE_SET, req.operationCode());
+        assertTrue(Arrays.equals(OPAQUE, req.opaque()));
+        assertEquals(key, req.key());
+        assertEquals(val, req.value());
+        assertEquals(100L, req.expiration());
+        assertEquals(cacheName, req.cacheName());
+    }
+
+    /**
+     * @param msg Parsed message.
+     */
+    private static void checkMemcacheNoop(GridClientMessage msg) {
+        assertTrue(msg instanceof GridMemcachedMessage);
+
+        GridMemcachedMessage req = (GridMemcachedMessage)msg;
+
+        assertEquals(MEMCACHE_NOOP, req.operationCode());
+        assertTrue(Arrays.equals(OPAQUE, req.opaque()));
+        assertNull(req.key());
+        assertNull(req.value());
+    }
+
+    /**
+     * @param key Key.
+     * @param val Value.
+     * @param cacheName Cache name or {@code null}.
+     * @return Memcache set packet with flags and an expiration of 100 seconds.
+     */
+    private static byte[] memcacheSetPacket(String key, String val, String cacheName) {
+        byte[] name = cacheName != null ? cacheName.getBytes(UTF_8) : new byte[0];
+
+        ByteBuffer extras = ByteBuffer.allocate(8 + name.length);
+
+        extras.putInt(0); // Key and value flags.
+        extras.putInt(100); // Expiration.
+        extras.put(name);
+
+        return memcachePacket(MEMCACHE_SET, extras.array(), key.getBytes(UTF_8), val.getBytes(UTF_8));
+    }
+
+    /**
+     * @param opCode Operation code.
+     * @param extras Extras or {@code null}.
+     * @param key Key or {@code null}.
+     * @param val Value or {@code null}.
+     * @return Memcache packet.
+     */
+    private static byte[] memcachePacket(byte opCode, byte[] extras, byte[] key, byte[] val) {
+        int extrasLen = extras != null ? extras.length : 0;
+        int keyLen = key != null ? key.length : 0;
+        int valLen = val != null ? val.length : 0;
+
+        ByteBuffer buf = ByteBuffer.allocate(HDR_LEN + extrasLen + keyLen + valLen);
+
+        buf.put(MEMCACHE_REQ_FLAG);
+        buf.put(opCode);
+        buf.putShort((short)keyLen);
+        buf.put((byte)extrasLen);
+        buf.put((byte)0); // Data type.
+        buf.putShort((short)0); // Reserved.
+        buf.putInt(extrasLen + keyLen + valLen);
+        buf.put(OPAQUE);
+        buf.putLong(0); // CAS.
+
+        if (extras != null)
+            buf.put(extras);
+
+        if (key != null)
+            buf.put(key);
+
+        if (val != null)
+            buf.put(val);
+
+        return buf.array();
+    }
+
+    /**
+     * @param bytes Bytes.
+     * @return Direct buffer with the given bytes.
+     */
+    private static ByteBuffer direct(byte[] bytes) {
+        ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+
+        buf.put(bytes);
+
+        buf.flip();
+
+        return buf;
+    }
+
+    /**
+     * Parses a packet fed in chunks of the given size and checks the result.
+     *
+     * @param body Packet body.
+     * @param chunk Chunk size.
+     * @throws Exception If failed.
+     */
+    private void checkPacket(byte[] body, int chunk) throws Exception {
+        long reqId = 42;
+        UUID clientId = UUID.randomUUID();
+        UUID destId = UUID.randomUUID();
+
+        byte[] packet = packet(body, reqId, clientId, destId);
+
+        GridTcpRestParser parser = new GridTcpRestParser(true);
+
+        GridNioSession ses = new MockNioSession();
+
+        GridClientMessage msg = null;
+
+        for (int off = 0; off < packet.length; off += chunk) {
+            assertNull("Message parsed before the last chunk [off=" + off + ", chunk=" + chunk + ']', msg);
+
+            ByteBuffer buf = ByteBuffer.wrap(Arrays.copyOfRange(packet, off, Math.min(off + chunk, packet.length)));
+
+            msg = parser.decode(ses, buf);
+
+            assertEquals(0, buf.remaining());
+        }
+
+        assertTrue(msg instanceof GridRouterResponse);
+
+        GridRouterResponse res = (GridRouterResponse)msg;
+
+        assertEquals(reqId, res.requestId());
+        assertEquals(clientId, res.clientId());
+        assertEquals(destId, res.destinationId());
+        assertTrue(Arrays.equals(body, res.body()));
+    }
+
+    /**
+     * @param len Length.
+     * @return Body of the given length.
+     */
+    private static byte[] body(int len) {
+        byte[] body = new byte[len];
+
+        for (int i = 0; i < len; i++)
+            body[i] = (byte)(i * 31 + 7);
+
+        return body;
+    }
+
+    /**
+     * @param body Body.
+     * @param reqId Request ID.
+     * @param clientId Client ID.
+     * @param destId Destination ID.
+     * @return Ignite packet.
+     */
+    private static byte[] packet(byte[] body, long reqId, UUID clientId, UUID destId) {
+        ByteBuffer buf = ByteBuffer.allocate(1 + 4 + 40 + body.length);
+
+        buf.put(IGNITE_REQ_FLAG);
+        buf.put(U.intToBytes(40 + body.length));
+        buf.put(GridClientByteUtils.longToBytes(reqId));
+        buf.put(GridClientByteUtils.uuidToBytes(clientId));
+        buf.put(GridClientByteUtils.uuidToBytes(destId));
+        buf.put(body);
+
+        return buf.array();
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2026 XStream Committers.
+ * All rights reserved.
+ *
+ * The software in this package is published under the terms of the BSD
+ * style license a copy of which has been included with this distribution in
+ * the LICENSE.txt file.
+ *
+ * Created on 18. October 2026
+ */
+package com.thoughtworks.xstream.benchmark.jmh;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.converters.ConverterLookup;
+import com.thoughtworks.xstream.io.HierarchicalStreamDriver;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+import com.thoughtworks.xstream.io.xml.SjsxpDriver;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+import com.thoughtworks.xstream.io.xml.WstxDriver;
+import com.thoughtworks.xstream.io.xml.Xpp3Driver;
+import com.thoughtworks.xstream.mapper.Mapper;
+
+
+/**
+ * Benchmark for marshalling and unmarshalling a representative object graph with the different XML drivers.
+ * <p>
+ * Run it with the GC profiler to report the allocation rate along with the throughput:
+ * </p>
+ *
+ * <pre>
+ * java -jar target/benchmarks.jar MarshallingBenchmark -prof gc
+ * </pre>
+ * <p>
+ * The {@link #lookupConverter(Blackhole)} and {@link #lookupSerializedClass(Blackhole)} benchmarks measure the per
+ * object overhead of the converter lookup and the mapper chain in isolation, which is where any cache in front of
+ * {@link ConverterLookup#lookupConverterForType(Class)} pays off.
+ * </p>
+ *
+ * @since upcoming
+ */
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 1)
+@Measurement(iterations = 8)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+public class MarshallingBenchmark {
+
+    /**
+     * The XML drivers to compare.
+     */
+    public enum DriverFactory {
+        /**
+         * XPP3 driver, the default of XStream.
+         */
+        XPP3 {
+            @Override
+            public HierarchicalStreamDriver getDriver() {
+                return new Xpp3Driver();
+            }
+        },
+        /**
+         * DOM driver.
+         */
+        DOM {
+            @Override
+            public HierarchicalStreamDriver getDriver() {
+                return new DomDriver();
+            }
+        },
+        /**
+         * StAX driver using the StAX implementation of the JDK.
+         */
+        StAX {
+            @Override
+            public HierarchicalStreamDriver getDriver() {
+                return new StaxDriver();
+            }
+        },
+        /**
+         * StAX driver using Woodstox.
+         */
+        Woodstox {
+            @Override
+            public HierarchicalStreamDriver getDriver() {
+                return new WstxDriver();
+            }
+        },
+        /**
+         * StAX driver using the SJSXP reference implementation.
+         */
+        SJSXP {
+            @Override
+            public HierarchicalStreamDriver getDriver() {
+                return new SjsxpDriver();
+            }
+        };
+
+        /**
+         * Create the driver instance.
+         *
+         * @return the new driver
+         * @since upcoming
+         */
+        public abstract HierarchicalStreamDriver getDriver();
+    }
+
+    @Param
+    private DriverFactory driverFactory;
+    private XStream xstream;
+    private Company company;
+    private String xml;
+    private Class[] types;
+
+    /**
+     * Initialize the XStream instance and the object graph.
+     *
+     * @since upcoming
+     */
+    @Setup
+    public void init() {
+        xstream = new XStream(driverFactory.getDriver());
+        xstream.allowTypes(new Class[]{Company.class, Employee.class, Address.class});
+        xstream.alias("company", Company.class);
+        xstream.alias("employee", Employee.class);
+        xstream.alias("address", Address.class);
+
+        company = new Company("XStream Inc.");
+        for (int i = 0; i < 100; ++i) {
+            Employee employee = new Employee("Employee " + i, 20 + i % 40, new Date(i * 86400000L));
+            employee.addresses.add(new Address("Main Street " + i, "Springfield"));
+            employee.addresses.add(new Address("Side Road " + i, "Shelbyville"));
+            employee.attributes.put("id", Integer.valueOf(i));
+            employee.attributes.put("manager", Boolean.valueOf(i % 10 == 0));
+            company.employees.add(employee);
+        }
+        xml = xstream.toXML(company);
+        types = new Class[]{
+            Company.class, Employee.class, Address.class, String.class, Integer.class, Boolean.class, Date.class,
+            ArrayList.class, HashMap.class, int.class};
+    }
+
+    /**
+     * Marshal the object graph.
+     *
+     * @since upcoming
+     */
+    @Benchmark
+    public void marshal(final Blackhole bh) {
+        final StringWriter writer = new StringWriter(xml.length());
+        xstream.toXML(company, writer);
+        bh.consume(writer);
+    }
+
+    /**
+     * Unmarshal the object graph.
+     *
+     * @since upcoming
+     */
+    @Benchmark
+    public void unmarshal(final Blackhole bh) {
+        bh.consume(xstream.fromXML(new StringReader(xml)));
+    }
+
+    /**
+     * Look up the converters for the types in the object graph.
+     *
+     * @since upcoming
+     */
+    @Benchmark
+    public void lookupConverter(final Blackhole bh) {
+        final ConverterLookup converterLookup = xstream.getConverterLookup();
+        for (int i = 0; i < types.length; ++i) {
+            bh.consume(converterLookup.lookupConverterForType(types[i]));
+        }
+    }
+
+    /**
+     * Resolve the element names for the types in the object graph through the mapper chain.
+     *
+     * @since upcoming
+     */
+    @Benchmark
+    public void lookupSerializedClass(final Blackhole bh) {
+        final Mapper mapper = xstream.getMapper();
+        for (int i = 0; i < types.length; ++i) {
+            bh.consume(mapper.serializedClass(types[i]));
+        }
+    }
+
+    static class Company {
+        String name;
+        List employees = new ArrayList();
+
+        Company(final String name) {
+            this.name = name;
+        }
+    }
+
+    static class Employee {
+        String name;
+        int age;
+        Date birthday;
+        List addresses = new ArrayList();
+        Map attributes = new HashMap();
+
+        Employee(final String name, final int age, final Date birthday) {
+            this.name = name;
+            this.age = age;
+            this.birthday = birthday;
+        }
+    }
+
+    static class Address {
+        String street;
+        String city;
+
+        Address(final String street, final String city) {
+            this.street = street;
+            this.city = city;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+//
+//  ========================================================================
+//  Copyright (c) 1995-2012 Mort Bay Consulting Pty. Ltd.
+//  ------------------------------------------------------------------------
+//  All rights reserved. This program and the accompanying materials
+//  are made available under the terms of the Eclipse Public License v1.0
+//  and Apache License v2.0 which accompanies this distribution.
+//
+//      The Eclipse Public License is available at
+//      http://www.eclipse.org/legal/epl-v10.html
+//
+//      The Apache License v2.0 is available at
+//      http://www.opensource.org/licenses/apache2.0.php
+//
+//  You may elect to redistribute this code under either of these licenses.
+//  ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class URLEncodedTest
+{
+    /* -------------------------------------------------------------- */
+    @Test
+    public void testDecoderChunked() throws Exception
+    {
+        byte[] content = "Name1=Value+1&Name2=%e2%82%ac&Name1=V%61lue2&Empty=&Flag".getBytes(StringUtil.__UTF8);
+
+        // Feed every possible split of the content, including splits inside escapes
+        for (int split=0;split<=content.length;split++)
+        {
+            MultiMap map = new MultiMap();
+            UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map,StringUtil.__UTF8,-1,-1);
+            decoder.decode(ByteBuffer.wrap(content,0,split));
+            decoder.decode(ByteBuffer.wrap(content,split,content.length-split));
+            decoder.complete();
+
+            assertEquals("split "+split,4,map.size());
+            assertEquals("split "+split,"Value 1",map.getValues("Name1").get(0));
+            assertEquals("split "+split,"Value2",map.getValues("Name1").get(1));
+            assertEquals("split "+split,"\u20AC",map.getString("Name2"));
+            assertEquals("split "+split,"",map.getString("Empty"));
+            assertEquals("split "+split,"",map.getString("Flag"));
+        }
+    }
+
+    /* -------------------------------------------------------------- */
+    @Test
+    public void testDecoderCharset() throws Exception
+    {
+        MultiMap map = new MultiMap();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map,StringUtil.__ISO_8859_1,-1,-1);
+        decoder.decode(ByteBuffer.wrap("Name=%e9t%E9".getBytes(StringUtil.__ISO_8859_1)));
+        decoder.complete();
+
+        assertEquals("\u00E9t\u00E9",map.getString("Name"));
+    }
+
+    /* -------------------------------------------------------------- */
+    @Test
+    public void testDecoderMaxKeys() throws Exception
+    {
+        MultiMap map = new MultiMap();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map,StringUtil.__UTF8,-1,2);
+        decoder.decode(ByteBuffer.wrap("a=1&b=2&c=3&d=4&e=5".getBytes(StringUtil.__UTF8)));
+        decoder.complete();
+
+        assertEquals(3,map.size());
+    }
+
+    /* -------------------------------------------------------------- */
+    @Test(expected=IllegalStateException.class)
+    public void testDecoderMaxLength() throws Exception
+    {
+        MultiMap map = new MultiMap();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map,StringUtil.__UTF8,8,-1);
+        decoder.decode(ByteBuffer.wrap("a=1&".getBytes(StringUtil.__UTF8)));
+        decoder.decode(ByteBuffer.wrap("b=2&c=3".getBytes(StringUtil.__UTF8)));
+    }
+
+    /* -------------------------------------------------------------- */
+    @Test
+    public void testEncode() throws Exception
+    {
+        UrlEncoded url_encoded = new UrlEncoded();
+        url_encoded.add("Name1","Value 1");
+        url_encoded.add("Name1","Value2");
+        assertEquals("Name1=Value+1&Name1=Value2",url_encoded.encode());
+
+        url_encoded.add("Name1","Value3");
+        assertEquals("Name1=Value+1&Name1=Value2&Name1=Value3",url_encoded.encode());
+    }
+}
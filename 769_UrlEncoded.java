@@ -23,6 +23,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
 import java.util.Iterator;
 import java.util.Map;
 
@@ -111,12 +112,26 @@ public class UrlEncoded extends MultiMap implements Cloneable
     
     /* -------------------------------------------------------------- */
     /** Encode Hashtable with % encoding.
+     * <p>
+     * A snapshot of the parameters is taken while holding the lock used by
+     * the decode methods and the snapshot is then encoded without holding it,
+     * so concurrent callers do not wait on each other's encoding.
      * @param equalsForNullValue if True, then an '=' is always used, even
      * for parameters without a value. e.g. "blah?a=&b=&c=".
      */
-    public synchronized String encode(String charset, boolean equalsForNullValue)
+    public String encode(String charset, boolean equalsForNullValue)
     {
-        return encode(this,charset,equalsForNullValue);
+        MultiMap snapshot=new MultiMap(size());
+        synchronized(this)
+        {
+            Iterator iter = entrySet().iterator();
+            while(iter.hasNext())
+            {
+                Map.Entry entry = (Map.Entry)iter.next();
+                snapshot.putValues(entry.getKey(),LazyList.getList(LazyList.clone(entry.getValue()),true));
+            }
+        }
+        return encode(snapshot,charset,equalsForNullValue);
     }
     
     /* -------------------------------------------------------------- */
@@ -661,6 +676,211 @@ public class UrlEncoded extends MultiMap implements Cloneable
         }
     }
     
+    /* -------------------------------------------------------------- */
+    /** Incremental decoder of "x-www-form-urlencoded" content.
+     * <p>
+     * Content is passed to {@link #decode(ByteBuffer)} in chunks as it
+     * arrives and each parameter is added to the {@link MultiMap} as soon as
+     * it is complete, so the whole content is never held in memory. Escapes
+     * may be split across chunks. {@link #complete()} must be called after
+     * the last chunk to add the final parameter.
+     * <p>
+     * A Decoder is not thread safe. As for the other decode methods, the map
+     * is locked while each chunk is decoded.
+     */
+    public static class Decoder
+    {
+        private final MultiMap _map;
+        private final String _charset;
+        private final int _maxLength;
+        private final int _maxKeys;
+        private final Utf8StringBuilder _utf8;
+        private final ByteArrayOutputStream2 _bytes;
+        private String _key;
+        private int _digits;
+        private int _digit;
+        private int _totalLength;
+        private boolean _done;
+
+        /* ------------------------------------------------------------ */
+        /**
+         * @param map MultiMap to add parameters to
+         * @param charset the charset of the content or null for the default
+         * @param maxLength maximum length of the content or -1 for no limit
+         * @param maxKeys maximum number of keys to read or -1 for no limit
+         */
+        public Decoder(MultiMap map, String charset, int maxLength, int maxKeys)
+        {
+            if (charset==null)
+                charset=ENCODING;
+            // '&', '=' and '%' are only single bytes for ASCII compatible charsets
+            if (StringUtil.__UTF16.equalsIgnoreCase(charset))
+                throw new IllegalArgumentException("Unsupported charset "+charset);
+
+            _map=map;
+            _charset=charset;
+            _maxLength=maxLength;
+            _maxKeys=maxKeys;
+            if (StringUtil.__UTF8.equalsIgnoreCase(charset))
+            {
+                _utf8=new Utf8StringBuilder();
+                _bytes=null;
+            }
+            else
+            {
+                _utf8=null;
+                _bytes=new ByteArrayOutputStream2();
+            }
+        }
+
+        /* ------------------------------------------------------------ */
+        /** Decode a chunk of content. All remaining bytes of the buffer are
+         * consumed.
+         * @param content the next chunk of content
+         */
+        public void decode(ByteBuffer content) throws IOException
+        {
+            if (_done)
+            {
+                content.position(content.limit());
+                return;
+            }
+
+            synchronized(_map)
+            {
+                while (content.hasRemaining())
+                {
+                    byte b=content.get();
+
+                    if (_maxLength>=0 && (++_totalLength > _maxLength))
+                        throw new IllegalStateException("Form too large");
+
+                    if (_digits==2)
+                    {
+                        _digit=TypeUtil.convertHexDigit(b);
+                        _digits=1;
+                        continue;
+                    }
+                    if (_digits==1)
+                    {
+                        append((byte)((_digit<<4) + TypeUtil.convertHexDigit(b)));
+                        _digits=0;
+                        continue;
+                    }
+
+                    switch ((char)(0xff&b))
+                    {
+                        case '&':
+                            add();
+                            if (_maxKeys>0 && _map.size()>_maxKeys)
+                            {
+                                LOG.warn("maxFormKeys limit exceeded keys>{}",_maxKeys);
+                                _done=true;
+                                content.position(content.limit());
+                                return;
+                            }
+                            break;
+
+                        case '=':
+                            if (_key!=null)
+                            {
+                                append(b);
+                                break;
+                            }
+                            _key=take();
+                            break;
+
+                        case '+':
+                            append((byte)' ');
+                            break;
+
+                        case '%':
+                            _digits=2;
+                            break;
+
+                        default:
+                            append(b);
+                            break;
+                    }
+                }
+            }
+        }
+
+        /* ------------------------------------------------------------ */
+        /** Add the final parameter, if any, to the map.
+         */
+        public void complete() throws IOException
+        {
+            if (_done)
+                return;
+            _done=true;
+
+            synchronized(_map)
+            {
+                if (_key!=null || length()>0)
+                    add();
+            }
+        }
+
+        /* ------------------------------------------------------------ */
+        private void add() throws IOException
+        {
+            String value=take();
+            if (_key != null)
+            {
+                _map.add(_key,value);
+            }
+            else if (value.length()>0)
+            {
+                _map.add(value,"");
+            }
+            _key=null;
+        }
+
+        /* ------------------------------------------------------------ */
+        private void append(byte b)
+        {
+            if (_utf8==null)
+            {
+                _bytes.write(b);
+                return;
+            }
+
+            try
+            {
+                _utf8.append(b);
+            }
+            catch(NotUtf8Exception e)
+            {
+                LOG.warn(e.toString());
+                LOG.debug(e);
+            }
+        }
+
+        /* ------------------------------------------------------------ */
+        private int length()
+        {
+            return _utf8==null?_bytes.size():_utf8.length();
+        }
+
+        /* ------------------------------------------------------------ */
+        private String take() throws IOException
+        {
+            String value;
+            if (_utf8==null)
+            {
+                value=_bytes.size()==0?"":_bytes.toString(_charset);
+                _bytes.setCount(0);
+            }
+            else
+            {
+                value=_utf8.length()==0?"":_utf8.toString();
+                _utf8.reset();
+            }
+            return value;
+        }
+    }
+
     /* -------------------------------------------------------------- */
     /** Decode String with % encoding.
      * This method makes the assumption that the majority of calls
@@ -44,11 +44,13 @@ import java.util.Collection;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
@@ -123,9 +125,41 @@ public class WebappClassLoader
     private static final List<String> JVM_THREAD_GROUP_NAMES =
         new ArrayList<String>();
 
+    /**
+     * <code>ClassLoader.getClassLoadingLock(String)</code>, which is only
+     * available on Java 7 and later.
+     */
+    private static final Method GET_CLASSLOADING_LOCK_METHOD;
+
     static {
         JVM_THREAD_GROUP_NAMES.add("system");
         JVM_THREAD_GROUP_NAMES.add("RMI Runtime");
+
+        // Register as parallel capable when running on Java 7 or later so
+        // that classes with different names can be loaded concurrently
+        Method getClassLoadingLock = null;
+        try {
+            final Method registerParallel =
+                ClassLoader.class.getDeclaredMethod("registerAsParallelCapable");
+            getClassLoadingLock = ClassLoader.class.getDeclaredMethod(
+                    "getClassLoadingLock", String.class);
+            final Method lockMethod = getClassLoadingLock;
+            AccessController.doPrivileged(new PrivilegedAction<Void>() {
+                public Void run() {
+                    registerParallel.setAccessible(true);
+                    lockMethod.setAccessible(true);
+                    return null;
+                }
+            });
+            registerParallel.invoke(null);
+        } catch (NoSuchMethodException e) {
+            // Java 6, use the per class name lock of earlier versions
+            getClassLoadingLock = null;
+        } catch (Exception e) {
+            log.warn("Failed to register WebappClassLoader as parallel capable", e);
+            getClassLoadingLock = null;
+        }
+        GET_CLASSLOADING_LOCK_METHOD = getClassLoadingLock;
     }
 
     protected class PrivilegedFindResourceByName
@@ -254,21 +288,16 @@ public class WebappClassLoader
      * The cache of ResourceEntry for classes and resources we have loaded,
      * keyed by resource name.
      */
-    protected HashMap<String, ResourceEntry> resourceEntries = new HashMap<String, ResourceEntry>();
+    protected Map<String, ResourceEntry> resourceEntries =
+        new ConcurrentHashMap<String, ResourceEntry>();
 
 
     /**
-     * The list of not found resources.
+     * The list of not found resources. Once it holds 1000 names, an arbitrary
+     * name is evicted for every name added.
      */
-    protected HashMap<String, String> notFoundResources =
-        new LinkedHashMap<String, String>() {
-        private static final long serialVersionUID = 1L;
-        @Override
-        protected boolean removeEldestEntry(
-                Map.Entry<String, String> eldest) {
-            return size() > 1000;
-        }
-    };
+    protected Map<String, String> notFoundResources =
+        new ConcurrentHashMap<String, String>();
 
 
     /**
@@ -316,6 +345,14 @@ public class WebappClassLoader
     protected JarFile[] jarFiles = new JarFile[0];
 
 
+    /**
+     * Held for reading while an entry of one of the JARs is looked up and
+     * read, which is done outside of the <code>jarFiles</code> lock, and for
+     * writing while the JARs are closed.
+     */
+    private final ReadWriteLock jarFilesLock = new ReentrantReadWriteLock();
+
+
     /**
      * The list of JARs, in the order they should be searched
      * for locally loaded classes or resources.
@@ -336,6 +373,22 @@ public class WebappClassLoader
     protected String[] jarNames = new String[0];
 
 
+    /**
+     * Index of the JARs by the directories that contain their entries, so that
+     * a lookup only needs to check the JARs that have entries in the directory
+     * of the resource. Maps the directory name (including the trailing slash)
+     * to the indexes into {@link #jarFiles}, in search order. Built on first
+     * use and guarded by the <code>jarFiles</code> lock.
+     */
+    private HashMap<String, int[]> jarIndex = null;
+
+
+    /**
+     * The <code>jarFiles</code> array the index has been built for.
+     */
+    private JarFile[] jarIndexFiles = null;
+
+
     /**
      * The list of JARs last modified dates, in the order they should be
      * searched for locally loaded classes or resources.
@@ -1089,7 +1142,6 @@ public class WebappClassLoader
 
         Vector<URL> result = new Vector<URL>();
 
-        int jarFilesLength = jarFiles.length;
         int repositoriesLength = repositories.length;
 
         int i;
@@ -1113,11 +1165,13 @@ public class WebappClassLoader
         // Looking at the JAR files
         synchronized (jarFiles) {
             if (openJARs()) {
-                for (i = 0; i < jarFilesLength; i++) {
-                    JarEntry jarEntry = jarFiles[i].getJarEntry(name);
+                int[] jarIndexes = findJars(name);
+                for (i = 0; i < jarIndexes.length; i++) {
+                    JarEntry jarEntry = jarFiles[jarIndexes[i]].getJarEntry(name);
                     if (jarEntry != null) {
                         try {
-                            String jarFakeUrl = getURI(jarRealFiles[i]).toString();
+                            String jarFakeUrl =
+                                getURI(jarRealFiles[jarIndexes[i]]).toString();
                             jarFakeUrl = "jar:" + jarFakeUrl + "!/" + name;
                             result.addElement(new URL(jarFakeUrl));
                         } catch (MalformedURLException e) {
@@ -1362,7 +1416,7 @@ public class WebappClassLoader
     public Class<?> loadClass(String name, boolean resolve)
         throws ClassNotFoundException {
 
-        synchronized (name.intern()) {
+        synchronized (getClassLoadingLockInternal(name)) {
             if (log.isDebugEnabled())
                 log.debug("loadClass(" + name + ", " + resolve + ")");
             Class<?> clazz = null;
@@ -1626,23 +1680,30 @@ public class WebappClassLoader
         // false, due to possible side effects
         clearReferences();
 
-        started = false;
-        
         int length = files.length;
         for (int i = 0; i < length; i++) {
             files[i] = null;
         }
 
-        length = jarFiles.length;
-        for (int i = 0; i < length; i++) {
-            try {
-                if (jarFiles[i] != null) {
-                    jarFiles[i].close();
+        // Wait for the threads reading from the JARs. Threads which read
+        // afterwards see that the loader has been stopped.
+        jarFilesLock.writeLock().lock();
+        try {
+            started = false;
+
+            length = jarFiles.length;
+            for (int i = 0; i < length; i++) {
+                try {
+                    if (jarFiles[i] != null) {
+                        jarFiles[i].close();
+                    }
+                } catch (IOException e) {
+                    // Ignore
                 }
-            } catch (IOException e) {
-                // Ignore
+                jarFiles[i] = null;
             }
-            jarFiles[i] = null;
+        } finally {
+            jarFilesLock.writeLock().unlock();
         }
 
         notFoundResources.clear();
@@ -1676,6 +1737,14 @@ public class WebappClassLoader
      */
     public void closeJARs(boolean force) {
         if (jarFiles.length > 0) {
+            // Wait for the threads reading from the JARs, unless the JARs are
+            // only closed because they have not been used for a while
+            if (force) {
+                jarFilesLock.writeLock().lock();
+            } else if (!jarFilesLock.writeLock().tryLock()) {
+                return;
+            }
+            try {
                 synchronized (jarFiles) {
                     if (force || (System.currentTimeMillis() 
                                   > (lastJarAccessed + 90000))) {
@@ -1693,6 +1762,9 @@ public class WebappClassLoader
                         }
                     }
                 }
+            } finally {
+                jarFilesLock.writeLock().unlock();
+            }
         }
     }
 
@@ -1800,9 +1872,8 @@ public class WebappClassLoader
 
     private final void clearReferencesStaticFinal() {
         
-        @SuppressWarnings("unchecked")
         Collection<ResourceEntry> values =
-            ((HashMap<String,ResourceEntry>) resourceEntries.clone()).values();
+            new ArrayList<ResourceEntry>(resourceEntries.values());
         Iterator<ResourceEntry> loadedClasses = values.iterator();
         //
         // walk through all loaded class to trigger initialization for
@@ -2247,6 +2318,66 @@ public class WebappClassLoader
     }
 
 
+    /**
+     * Find the JARs which may contain the given resource. Must be called while
+     * holding the <code>jarFiles</code> lock, after the JARs have been opened.
+     *
+     * @return the indexes into <code>jarFiles</code> of the JARs with entries
+     *  in the directory of the resource, in search order
+     */
+    private int[] findJars(String path) {
+        if (jarIndexFiles != jarFiles) {
+            HashMap<String, int[]> index = new HashMap<String, int[]>();
+            for (int i = 0; i < jarFiles.length; i++) {
+                Enumeration<JarEntry> entries = jarFiles[i].entries();
+                while (entries.hasMoreElements()) {
+                    String key = getJarIndexKey(entries.nextElement().getName());
+                    int[] jars = index.get(key);
+                    if (jars == null) {
+                        index.put(key, new int[] { i });
+                    } else if (jars[jars.length - 1] != i) {
+                        int[] result = new int[jars.length + 1];
+                        System.arraycopy(jars, 0, result, 0, jars.length);
+                        result[jars.length] = i;
+                        index.put(key, result);
+                    }
+                }
+            }
+            jarIndex = index;
+            jarIndexFiles = jarFiles;
+        }
+        int[] result = jarIndex.get(getJarIndexKey(path));
+        return (result == null) ? new int[0] : result;
+    }
+
+
+    /**
+     * Return the directory of an entry, or of a resource path, including the
+     * trailing slash. A directory entry belongs to its parent directory, as
+     * <code>JarFile.getJarEntry()</code> also finds directory entries when
+     * the name is given without the trailing slash.
+     */
+    private static String getJarIndexKey(String path) {
+        int pos = path.lastIndexOf('/', path.length() - 2);
+        return (pos < 0) ? "" : path.substring(0, pos + 1);
+    }
+
+
+    /**
+     * Return the lock used to load the class with the given name.
+     */
+    private Object getClassLoadingLockInternal(String className) {
+        if (GET_CLASSLOADING_LOCK_METHOD != null) {
+            try {
+                return GET_CLASSLOADING_LOCK_METHOD.invoke(this, className);
+            } catch (Exception e) {
+                // Fall through to the per class name lock
+            }
+        }
+        return className.intern();
+    }
+
+
     /**
      * Find specified class in local repositories.
      *
@@ -2278,7 +2409,7 @@ public class WebappClassLoader
         if (clazz != null)
             return clazz;
 
-        synchronized (this) {
+        synchronized (getClassLoadingLockInternal(name)) {
             clazz = entry.loadedClass;
             if (clazz != null)
                 return clazz;
@@ -2393,7 +2524,6 @@ public class WebappClassLoader
         int contentLength = -1;
         InputStream binaryStream = null;
 
-        int jarFilesLength = jarFiles.length;
         int repositoriesLength = repositories.length;
 
         int i;
@@ -2470,94 +2600,117 @@ public class WebappClassLoader
 
         JarEntry jarEntry = null;
 
-        synchronized (jarFiles) {
+        // Keep the JARs open until the entry has been read
+        jarFilesLock.readLock().lock();
+        try {
 
-            if (!openJARs()) {
-                return null;
-            }
-            for (i = 0; (entry == null) && (i < jarFilesLength); i++) {
+            if (entry == null) {
+
+                JarFile jarFile = null;
+                File jarRealFile = null;
 
-                jarEntry = jarFiles[i].getJarEntry(path);
+                synchronized (jarFiles) {
+                    if (!started || !openJARs()) {
+                        return null;
+                    }
+                    int[] jarIndexes = findJars(path);
+                    for (i = 0; (jarEntry == null) && (i < jarIndexes.length); i++) {
+                        jarEntry = jarFiles[jarIndexes[i]].getJarEntry(path);
+                        if (jarEntry != null) {
+                            jarFile = jarFiles[jarIndexes[i]];
+                            jarRealFile = jarRealFiles[jarIndexes[i]];
+                        }
+                    }
+                }
 
+                // The entry is read without holding the jarFiles lock so that
+                // classes can be loaded from several JARs in parallel
                 if (jarEntry != null) {
 
                     entry = new ResourceEntry();
                     try {
-                        entry.codeBase = getURL(jarRealFiles[i], false);
-                        String jarFakeUrl = getURI(jarRealFiles[i]).toString();
+                        entry.codeBase = getURL(jarRealFile, false);
+                        String jarFakeUrl = getURI(jarRealFile).toString();
                         jarFakeUrl = "jar:" + jarFakeUrl + "!/" + path;
                         entry.source = new URL(jarFakeUrl);
-                        entry.lastModified = jarRealFiles[i].lastModified();
+                        entry.lastModified = jarRealFile.lastModified();
                     } catch (MalformedURLException e) {
                         return null;
                     }
                     contentLength = (int) jarEntry.getSize();
                     try {
-                        entry.manifest = jarFiles[i].getManifest();
-                        binaryStream = jarFiles[i].getInputStream(jarEntry);
+                        entry.manifest = jarFile.getManifest();
+                        binaryStream = jarFile.getInputStream(jarEntry);
                     } catch (IOException e) {
                         return null;
                     }
 
                     // Extract resources contained in JAR to the workdir
                     if (antiJARLocking && !(path.endsWith(".class"))) {
-                        byte[] buf = new byte[1024];
-                        File resourceFile = new File
-                            (loaderDir, jarEntry.getName());
-                        if (!resourceFile.exists()) {
-                            Enumeration<JarEntry> entries =
-                                jarFiles[i].entries();
-                            while (entries.hasMoreElements()) {
-                                JarEntry jarEntry2 =  entries.nextElement();
-                                if (!(jarEntry2.isDirectory()) 
-                                    && (!jarEntry2.getName().endsWith
-                                        (".class"))) {
-                                    resourceFile = new File
-                                        (loaderDir, jarEntry2.getName());
-                                    resourceFile.getParentFile().mkdirs();
-                                    FileOutputStream os = null;
-                                    InputStream is = null;
-                                    try {
-                                        is = jarFiles[i].getInputStream
-                                            (jarEntry2);
-                                        os = new FileOutputStream
-                                            (resourceFile);
-                                        while (true) {
-                                            int n = is.read(buf);
-                                            if (n <= 0) {
-                                                break;
-                                            }
-                                            os.write(buf, 0, n);
-                                        }
-                                    } catch (IOException e) {
-                                        // Ignore
-                                    } finally {
+                        // Only one thread at a time may extract files
+                        synchronized (jarFiles) {
+                            byte[] buf = new byte[1024];
+                            File resourceFile = new File
+                                (loaderDir, jarEntry.getName());
+                            if (!resourceFile.exists()) {
+                                Enumeration<JarEntry> entries =
+                                    jarFile.entries();
+                                while (entries.hasMoreElements()) {
+                                    JarEntry jarEntry2 =  entries.nextElement();
+                                    if (!(jarEntry2.isDirectory()) 
+                                        && (!jarEntry2.getName().endsWith
+                                            (".class"))) {
+                                        resourceFile = new File
+                                            (loaderDir, jarEntry2.getName());
+                                        resourceFile.getParentFile().mkdirs();
+                                        FileOutputStream os = null;
+                                        InputStream is = null;
                                         try {
-                                            if (is != null) {
-                                                is.close();
+                                            is = jarFile.getInputStream
+                                                (jarEntry2);
+                                            os = new FileOutputStream
+                                                (resourceFile);
+                                            while (true) {
+                                                int n = is.read(buf);
+                                                if (n <= 0) {
+                                                    break;
+                                                }
+                                                os.write(buf, 0, n);
                                             }
                                         } catch (IOException e) {
-                                        }
-                                        try {
-                                            if (os != null) {
-                                                os.close();
+                                            // Ignore
+                                        } finally {
+                                            try {
+                                                if (is != null) {
+                                                    is.close();
+                                                }
+                                            } catch (IOException e) {
+                                            }
+                                            try {
+                                                if (os != null) {
+                                                    os.close();
+                                                }
+                                            } catch (IOException e) {
                                             }
-                                        } catch (IOException e) {
                                         }
                                     }
                                 }
                             }
                         }
                     }
-
                 }
 
             }
 
             if (entry == null) {
-                synchronized (notFoundResources) {
-                    notFoundResources.put(name, name);
+                if (notFoundResources.size() >= 1000) {
+                    Iterator<String> names = notFoundResources.keySet().iterator();
+                    if (names.hasNext()) {
+                        names.next();
+                        names.remove();
+                    }
                 }
+                notFoundResources.put(name, name);
                 return null;
             }
 
@@ -2605,13 +2758,15 @@ public class WebappClassLoader
 
             }
 
+        } finally {
+            jarFilesLock.readLock().unlock();
         }
 
         // Add the entry in the local resource repository
+        // Ensures that all the threads which may be in a race to load
+        // a particular class all end up with the same ResourceEntry
+        // instance
         synchronized (resourceEntries) {
-            // Ensures that all the threads which may be in a race to load
-            // a particular class all end up with the same ResourceEntry
-            // instance
             ResourceEntry entry2 = resourceEntries.get(name);
             if (entry2 == null) {
                 resourceEntries.put(name, entry);
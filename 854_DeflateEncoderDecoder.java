@@ -19,49 +19,232 @@
 package org.apache.cxf.rs.security.saml;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.DataFormatException;
 import java.util.zip.Deflater;
 import java.util.zip.Inflater;
 
+/**
+ * Deflates and inflates SAML tokens using the raw (nowrap) DEFLATE format.
+ *
+ * Deflater and Inflater instances hold native zlib memory, so they are shared by all
+ * instances of this class through two bounded pools instead of being created for every
+ * token. At most {@link #MAX_POOLED_CODECS} idle instances of each kind are kept, any
+ * further ones are released with end() when they are returned. The utilization of the
+ * pools can be monitored with {@link #getDeflaterPoolMetrics()} and
+ * {@link #getInflaterPoolMetrics()}.
+ */
 public class DeflateEncoderDecoder {
-    public InputStream inflateToken(byte[] deflatedToken) 
+    /**
+     * The maximum number of idle Deflater and Inflater instances kept for reuse.
+     */
+    public static final int MAX_POOLED_CODECS = 16;
+
+    private static final int BUFFER_SIZE = 1024;
+
+    private static final CodecPool<Deflater> DEFLATERS = new CodecPool<Deflater>() {
+        protected Deflater create() {
+            return new Deflater(Deflater.DEFLATED, true);
+        }
+        protected void reset(Deflater deflater) {
+            deflater.reset();
+        }
+        protected void end(Deflater deflater) {
+            deflater.end();
+        }
+    };
+
+    private static final CodecPool<Inflater> INFLATERS = new CodecPool<Inflater>() {
+        protected Inflater create() {
+            return new Inflater(true);
+        }
+        protected void reset(Inflater inflater) {
+            inflater.reset();
+        }
+        protected void end(Inflater inflater) {
+            inflater.end();
+        }
+    };
+
+    public InputStream inflateToken(byte[] deflatedToken)
         throws DataFormatException {
-        Inflater inflater = new Inflater(true);
-        inflater.setInput(deflatedToken);
-        
-        byte[] input = new byte[deflatedToken.length * 2];
-        int inflatedLen = 0;
-        int inputLen = 0;
-        byte[] inflatedToken = input;
-        while (!inflater.finished()) {
-            inputLen = inflater.inflate(input);
-            if (!inflater.finished()) {
-                inflatedToken = new byte[input.length + inflatedLen];
-                System.arraycopy(input, 0, inflatedToken, inflatedLen, inputLen);
-                inflatedLen += inputLen;
-            }
+        TokenOutputStream os = new TokenOutputStream(deflatedToken.length * 2);
+        try {
+            inflateToken(deflatedToken, os);
+        } catch (IOException ex) {
+            // TokenOutputStream does not throw IOException
+            throw new IllegalStateException(ex);
         }
-        InputStream is = new ByteArrayInputStream(input, 0, inputLen);
-        if (inflatedToken != input) {
-            is = new SequenceInputStream(new ByteArrayInputStream(inflatedToken, 0, inflatedLen),
-                                         is);
+        return os.toInputStream();
+    }
+
+    /**
+     * Inflates the token and writes the result to the given stream as it is produced.
+     */
+    public void inflateToken(byte[] deflatedToken, OutputStream os)
+        throws DataFormatException, IOException {
+        Inflater inflater = INFLATERS.borrow();
+        try {
+            inflater.setInput(deflatedToken);
+
+            byte[] buffer = new byte[Math.min(Math.max(deflatedToken.length * 2, 64), BUFFER_SIZE * 4)];
+            while (!inflater.finished()) {
+                int len = inflater.inflate(buffer);
+                if (len > 0) {
+                    os.write(buffer, 0, len);
+                } else if (!inflater.finished() && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Deflated token is truncated");
+                }
+            }
+        } finally {
+            INFLATERS.release(inflater);
         }
-        return is;
     }
-    
+
     public byte[] deflateToken(byte[] tokenBytes) {
-        Deflater compresser = new Deflater(Deflater.DEFLATED, true);
-        
-        compresser.setInput(tokenBytes);
-        compresser.finish();
-        
-        byte[] output = new byte[tokenBytes.length];
-        
-        int compressedDataLength = compresser.deflate(output);
-        byte[] result = new byte[compressedDataLength];
-        System.arraycopy(output, 0, result, 0, compressedDataLength);
-        return result;
+        TokenOutputStream os = new TokenOutputStream(tokenBytes.length + 16);
+        try {
+            deflateToken(tokenBytes, os);
+        } catch (IOException ex) {
+            // TokenOutputStream does not throw IOException
+            throw new IllegalStateException(ex);
+        }
+        return os.toByteArray();
+    }
+
+    /**
+     * Deflates the token and writes the result to the given stream as it is produced.
+     */
+    public void deflateToken(byte[] tokenBytes, OutputStream os) throws IOException {
+        Deflater compresser = DEFLATERS.borrow();
+        try {
+            compresser.setInput(tokenBytes);
+            compresser.finish();
+
+            byte[] buffer = new byte[Math.min(tokenBytes.length + 16, BUFFER_SIZE)];
+            while (!compresser.finished()) {
+                int len = compresser.deflate(buffer);
+                os.write(buffer, 0, len);
+            }
+        } finally {
+            DEFLATERS.release(compresser);
+        }
+    }
+
+    public static PoolMetrics getDeflaterPoolMetrics() {
+        return DEFLATERS;
+    }
+
+    public static PoolMetrics getInflaterPoolMetrics() {
+        return INFLATERS;
+    }
+
+    /**
+     * Utilization of a pool of Deflater or Inflater instances.
+     */
+    public interface PoolMetrics {
+        /**
+         * @return the number of instances currently in use
+         */
+        int getActive();
+
+        /**
+         * @return the number of idle instances kept for reuse
+         */
+        int getIdle();
+
+        /**
+         * @return the number of instances created, because the pool was empty
+         */
+        long getCreated();
+
+        /**
+         * @return the number of times an idle instance was reused
+         */
+        long getReused();
+
+        /**
+         * @return the number of instances released, because the pool was full
+         */
+        long getDiscarded();
+    }
+
+    private abstract static class CodecPool<T> implements PoolMetrics {
+        private final Queue<T> idle = new ConcurrentLinkedQueue<T>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong reused = new AtomicLong();
+        private final AtomicLong discarded = new AtomicLong();
+
+        T borrow() {
+            active.incrementAndGet();
+            T codec = idle.poll();
+            if (codec != null) {
+                idleCount.decrementAndGet();
+                reused.incrementAndGet();
+                return codec;
+            }
+            created.incrementAndGet();
+            return create();
+        }
+
+        void release(T codec) {
+            active.decrementAndGet();
+            if (idleCount.incrementAndGet() <= MAX_POOLED_CODECS) {
+                reset(codec);
+                idle.offer(codec);
+            } else {
+                idleCount.decrementAndGet();
+                discarded.incrementAndGet();
+                end(codec);
+            }
+        }
+
+        protected abstract T create();
+
+        protected abstract void reset(T codec);
+
+        protected abstract void end(T codec);
+
+        public int getActive() {
+            return active.get();
+        }
+
+        public int getIdle() {
+            return idleCount.get();
+        }
+
+        public long getCreated() {
+            return created.get();
+        }
+
+        public long getReused() {
+            return reused.get();
+        }
+
+        public long getDiscarded() {
+            return discarded.get();
+        }
+    }
+
+    /**
+     * Collects the output of the synchronous methods without copying it into an InputStream.
+     */
+    private static class TokenOutputStream extends ByteArrayOutputStream {
+        TokenOutputStream(int size) {
+            super(size);
+        }
+
+        InputStream toInputStream() {
+            return new ByteArrayInputStream(buf, 0, count);
+        }
     }
 }
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.saml;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class DeflateEncoderDecoderTest extends Assert {
+
+    private final DeflateEncoderDecoder coder = new DeflateEncoderDecoder();
+
+    @Test
+    public void testIncompressibleInputLargerThanBuffer() throws Exception {
+        byte[] token = new byte[100 * 1024];
+        new Random(42).nextBytes(token);
+
+        byte[] deflated = coder.deflateToken(token);
+        assertTrue(deflated.length > token.length);
+        assertArrayEquals(token, read(coder.inflateToken(deflated)));
+    }
+
+    @Test
+    public void testMultiChunkInflate() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            sb.append("<saml2:Attribute Name=\"role\">user").append(i % 10).append("</saml2:Attribute>");
+        }
+        byte[] token = sb.toString().getBytes("UTF-8");
+
+        byte[] deflated = coder.deflateToken(token);
+        // the inflate buffer is at most 4 times the deflate buffer size, so many chunks are needed
+        assertTrue(token.length > deflated.length * 100);
+
+        assertArrayEquals(token, read(coder.inflateToken(deflated)));
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        coder.inflateToken(deflated, os);
+        assertArrayEquals(token, os.toByteArray());
+    }
+
+    @Test
+    public void testEmptyToken() throws Exception {
+        byte[] deflated = coder.deflateToken(new byte[0]);
+        assertEquals(0, read(coder.inflateToken(deflated)).length);
+    }
+
+    @Test
+    public void testPooledInstancesAreResetBeforeReuse() throws Exception {
+        byte[] first = "first token, deflated and inflated once".getBytes("UTF-8");
+        byte[] second = new byte[5000];
+        new Random(7).nextBytes(second);
+
+        coder.inflateToken(coder.deflateToken(first));
+
+        long deflatersReused = DeflateEncoderDecoder.getDeflaterPoolMetrics().getReused();
+        long inflatersReused = DeflateEncoderDecoder.getInflaterPoolMetrics().getReused();
+
+        // a reused Deflater must produce the same output as a fresh one
+        byte[] deflated = coder.deflateToken(second);
+        assertArrayEquals(deflate(second), deflated);
+        assertArrayEquals(second, read(coder.inflateToken(deflated)));
+
+        assertTrue(DeflateEncoderDecoder.getDeflaterPoolMetrics().getReused() > deflatersReused);
+        assertTrue(DeflateEncoderDecoder.getInflaterPoolMetrics().getReused() > inflatersReused);
+    }
+
+    @Test
+    public void testInflaterIsResetAfterTruncatedToken() throws Exception {
+        byte[] token = new byte[10000];
+        new Random(3).nextBytes(token);
+        byte[] deflated = coder.deflateToken(token);
+
+        try {
+            coder.inflateToken(Arrays.copyOf(deflated, deflated.length / 2));
+            fail("DataFormatException expected");
+        } catch (DataFormatException ex) {
+            // expected
+        }
+
+        assertArrayEquals(token, read(coder.inflateToken(deflated)));
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        byte[] token = "token".getBytes("UTF-8");
+        for (int i = 0; i < DeflateEncoderDecoder.MAX_POOLED_CODECS * 2; i++) {
+            coder.inflateToken(coder.deflateToken(token));
+        }
+        assertTrue(DeflateEncoderDecoder.getDeflaterPoolMetrics().getIdle()
+                   <= DeflateEncoderDecoder.MAX_POOLED_CODECS);
+        assertTrue(DeflateEncoderDecoder.getInflaterPoolMetrics().getIdle()
+                   <= DeflateEncoderDecoder.MAX_POOLED_CODECS);
+    }
+
+    private static byte[] deflate(byte[] token) {
+        Deflater deflater = new Deflater(Deflater.DEFLATED, true);
+        try {
+            deflater.setInput(token);
+            deflater.finish();
+            ByteArrayOutputStream os = new ByteArrayOutputStream();
+            byte[] buffer = new byte[1024];
+            while (!deflater.finished()) {
+                os.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return os.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] read(InputStream is) throws IOException {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int n;
+        while ((n = is.read(buffer)) != -1) {
+            os.write(buffer, 0, n);
+        }
+        return os.toByteArray();
+    }
+}
@@ -88,6 +88,7 @@ import org.apache.tomcat.util.buf.MessageBytes;
 import org.apache.tomcat.util.buf.UDecoder;
 import org.apache.tomcat.util.http.CookieProcessor;
 import org.apache.tomcat.util.http.FastHttpDateFormat;
+import org.apache.tomcat.util.http.MimeHeaders;
 import org.apache.tomcat.util.http.Parameters;
 import org.apache.tomcat.util.http.Parameters.FailReason;
 import org.apache.tomcat.util.http.ServerCookie;
@@ -3228,11 +3229,11 @@ public class Request
         // containing the corresponding Locales to be added
         TreeMap<Double, ArrayList<Locale>> locales = new TreeMap<>();
 
-        Enumeration<String> values = getHeaders("accept-language");
-
-        while (values.hasMoreElements()) {
-            String value = values.nextElement();
-            parseLocalesHeader(value, locales);
+        MimeHeaders headers = coyoteRequest.getMimeHeaders();
+        int pos = headers.findHeader("accept-language", 0);
+        while (pos >= 0) {
+            parseLocalesHeader(headers.getValue(pos), locales);
+            pos = headers.findHeader("accept-language", pos + 1);
         }
 
         // Process the quality values in highest->lowest order (due to
@@ -3245,6 +3246,27 @@ public class Request
     }
 
 
+    /**
+     * Parse accept-language header value. Values that are still held as bytes,
+     * as they are when read from the network, are parsed without converting
+     * them to a String.
+     */
+    protected void parseLocalesHeader(MessageBytes value, TreeMap<Double, ArrayList<Locale>> locales) {
+
+        if (value.getType() != MessageBytes.T_BYTES) {
+            parseLocalesHeader(value.toString(), locales);
+            return;
+        }
+
+        // The parser advances the start of its input so give it a view of the
+        // header bytes
+        ByteChunk header = value.getByteChunk();
+        ByteChunk input = new ByteChunk();
+        input.setBytes(header.getBuffer(), header.getStart(), header.getLength());
+        addLocales(AcceptLanguage.parse(input), locales);
+    }
+
+
     /**
      * Parse accept-language header value.
      */
@@ -3259,6 +3281,13 @@ public class Request
             return;
         }
 
+        addLocales(acceptLanguages, locales);
+    }
+
+
+    private void addLocales(List<AcceptLanguage> acceptLanguages,
+            TreeMap<Double, ArrayList<Locale>> locales) {
+
         for (AcceptLanguage acceptLanguage : acceptLanguages) {
             // Add a new Locale to the list of Locales for this quality level
             Double key = Double.valueOf(-acceptLanguage.getQuality());  // Reverse the order